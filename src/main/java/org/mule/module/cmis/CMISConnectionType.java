@@ -10,7 +10,11 @@ package org.mule.module.cmis;
  */
 public enum CMISConnectionType {
     ATOM("ATOM"),
-    SOAP("SOAP");
+    SOAP("SOAP"),
+    /**
+     * CMIS 1.1 browser binding, which exchanges compact JSON instead of XML.
+     */
+    BROWSER("BROWSER");
 
     private String value;
 
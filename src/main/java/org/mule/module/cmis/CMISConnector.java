@@ -13,16 +13,24 @@ import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.mule.api.ConnectionException;
 import org.mule.api.ConnectionExceptionCode;
+import org.mule.api.MuleContext;
 import org.mule.api.annotations.*;
 import org.mule.api.annotations.display.Password;
 import org.mule.api.annotations.display.Placement;
+import org.mule.api.annotations.lifecycle.Dispose;
 import org.mule.api.annotations.param.ConnectionKey;
 import org.mule.api.annotations.param.Default;
 import org.mule.api.annotations.param.Optional;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.cmis.exception.CMISConnectorConnectionException;
 
+import javax.inject.Inject;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -35,7 +43,7 @@ import java.util.Map;
 @ReconnectOn(exceptions = CMISConnectorConnectionException.class)
 public class CMISConnector implements CMISFacade {
 
-    // This object will be used to hold the concurrency for the connection manager features
+    // Serializes the creation of the facade, reads of the connection state do not lock
     private final Object threadSafeLock;
 
     /**
@@ -53,6 +61,50 @@ public class CMISConnector implements CMISFacade {
     @Default("10000")
     String connectionTimeout;
 
+    /**
+     * Milliseconds to wait for the responses of the repository, by default there is no read timeout.
+     */
+    @Configurable
+    @Optional
+    String readTimeout;
+
+    /**
+     * Read timeout of the calls that read or update single objects, types and repository information,
+     * defaults to readTimeout.
+     */
+    @Configurable
+    @Optional
+    String metadataReadTimeout;
+
+    /**
+     * Read timeout of queries, checked out documents and change logs, defaults to readTimeout.
+     */
+    @Configurable
+    @Optional
+    String queryReadTimeout;
+
+    /**
+     * Read timeout of the calls that upload, download or copy document contents, defaults to readTimeout.
+     */
+    @Configurable
+    @Optional
+    String contentReadTimeout;
+
+    /**
+     * Read timeout of the calls that list, delete or copy folder trees, defaults to readTimeout.
+     */
+    @Configurable
+    @Optional
+    String treeReadTimeout;
+
+    /**
+     * Milliseconds operations made of several calls to the repository, such as get-or-create-folder-by-path,
+     * may run. It is checked before each call, by default there is no limit.
+     */
+    @Configurable
+    @Optional
+    Long operationTimeout;
+
     /**
      * Specifies whether the Alfresco Object Factory implementation should be utilized.
      */
@@ -67,6 +119,16 @@ public class CMISConnector implements CMISFacade {
     @Default("org.apache.chemistry.opencmis.client.bindings.spi.webservices.CXFPortProvider")
     String cxfPortProvider;
 
+    /**
+     * Directory holding local copies of the WSDL documents of the SOAP binding, named after their services
+     * (e.g. ObjectService.wsdl) in a subdirectory named after the first 16 hexadecimal digits of the SHA-256 hash
+     * of the base URL. Missing copies are downloaded once and stored there, so new sessions do not download the
+     * WSDLs again. Configurations of different servers can share the directory.
+     */
+    @Configurable
+    @Optional
+    String wsdlCacheDirectory;
+
     /**
      * Turn on-off cookies support, allows to set a custom implementation by extending
      * org.apache.chemistry.opencmis.client.bindings.spi.webservices.AbstractPortProvider
@@ -77,15 +139,237 @@ public class CMISConnector implements CMISFacade {
 
     /**
      * The type of endpoint.
-     * Values allowed: SOAP or ATOM
+     * Values allowed: SOAP, ATOM or BROWSER (CMIS 1.1 JSON binding)
      */
     @Placement(group = "Repository Information")
     @Configurable
     @Default("ATOM")
     private CMISConnectionType endpoint;
 
-    private CMISFacade facade;
-    private String connectionIdentifier;
+    /**
+     * What to do when the content of a document being created is already in the repository:
+     * upload it again (NONE), skip the upload (SKIP) or file the existing document in the target folder (LINK).
+     * Duplicates are detected by the SHA-256 hash of the content.
+     */
+    @Configurable
+    @Default("NONE")
+    DeduplicationMode deduplication;
+
+    /**
+     * Queryable property where the content hash of created documents is stored, so that duplicates
+     * uploaded through other connections or applications are detected too. Only the local index is used if not set.
+     */
+    @Configurable
+    @Optional
+    String deduplicationHashProperty;
+
+    /**
+     * Maximum number of content hashes kept in the local deduplication index.
+     */
+    @Configurable
+    @Default("10000")
+    Integer deduplicationIndexSize;
+
+    /**
+     * Local directory where downloaded contents are cached, keyed by object id and change token.
+     * Contents are not cached if not set.
+     */
+    @Configurable
+    @Optional
+    String contentCacheDirectory;
+
+    /**
+     * Maximum number of bytes kept in the content cache, least recently used contents are evicted first.
+     */
+    @Configurable
+    @Default("104857600")
+    Long contentCacheMaxSize;
+
+    /**
+     * Whether connect returns without waiting for the repository. The session is created and authenticated, and
+     * the WSDLs missing from the WSDL cache downloaded, in the background, and operations invoked meanwhile wait
+     * for it. Configuration errors such as wrong credentials
+     * are then reported by the first operation instead of at connection time.
+     */
+    @Configurable
+    @Default("false")
+    Boolean asyncConnect;
+
+    /**
+     * Milliseconds the repositories listed by the server, used to resolve a missing repository ID, are cached.
+     * The cache is shared by every connection to the same server and user and refreshed in the background.
+     * 0 lists the repositories on every call.
+     */
+    @Configurable
+    @Default("300000")
+    Long repositoryCacheTtl;
+
+    /**
+     * Whether type definitions are cached, so that resolving the types of the objects being created or updated
+     * does not call the repository. The cache is shared by all the connections to the same repository and can be
+     * invalidated through JMX.
+     */
+    @Configurable
+    @Default("false")
+    Boolean typeDefinitionCache;
+
+    /**
+     * Comma separated list of types, such as {@code cmis:document,D:cmiscustom:document}, whose hierarchies
+     * are loaded into the type definition cache when the session is created.
+     */
+    @Configurable
+    @Optional
+    String preloadTypes;
+
+    /**
+     * Whether the paths found to hold no object by getObjectByPath, exists and getObjectIdByPath are remembered,
+     * so that probing them again does not call the repository. Objects created through the connector, or reported
+     * by the changelog operation, are seen right away, objects created by other clients once the entry expires.
+     */
+    @Configurable
+    @Default("false")
+    Boolean missingPathCache;
+
+    /**
+     * Milliseconds a path found to hold no object is remembered.
+     */
+    @Configurable
+    @Default("30000")
+    Long missingPathCacheTtl;
+
+    /**
+     * Maximum number of paths found to hold no object that are remembered.
+     */
+    @Configurable
+    @Default("10000")
+    Integer missingPathCacheSize;
+
+    /**
+     * Whether concurrent reads of the same object by id or by path, such as getObjectById and getObjectByPath,
+     * share a single request to the repository and its result. Reads are shared by all the connections to the
+     * same repository, and coalesced callers get the same object instance, so flows must not change it in place.
+     * The share of coalesced invocations is published with the operation metrics.
+     */
+    @Configurable
+    @Default("false")
+    Boolean coalesceReads;
+
+    /**
+     * Whether uploaded streams are copied before being sent, so that an operation retried after a
+     * reconnection uploads the whole content again instead of an already consumed stream.
+     */
+    @Configurable
+    @Default("false")
+    Boolean spoolUploads;
+
+    /**
+     * Size in bytes up to which spooled uploads are kept in memory, bigger contents are spooled to a temporary file.
+     */
+    @Configurable
+    @Default("1048576")
+    Integer spoolMemoryThreshold;
+
+    /**
+     * Name under which the invocations, latency percentiles, errors and transferred bytes of each operation
+     * are published as JMX MBeans of the org.mule.module.cmis domain, named after the application and unregistered
+     * once its last connection is closed. Metrics are not collected when it is not set.
+     */
+    @Configurable
+    @Optional
+    String metricsName;
+
+    /**
+     * Whether calls fail fast, without reaching the repository, once too many recent calls could not connect to it.
+     */
+    @Configurable
+    @Default("false")
+    Boolean circuitBreaker;
+
+    /**
+     * Percentage of failed calls among the last circuitBreakerWindow calls that opens the circuit breaker.
+     */
+    @Configurable
+    @Default("50")
+    Integer circuitBreakerFailureRate;
+
+    /**
+     * Number of recent calls the failure rate of the circuit breaker is computed over.
+     */
+    @Configurable
+    @Default("20")
+    Integer circuitBreakerWindow;
+
+    /**
+     * Milliseconds the circuit breaker stays open before a single call is let through to probe the repository.
+     */
+    @Configurable
+    @Default("30000")
+    Long circuitBreakerOpenTime;
+
+    /**
+     * Number of times operations that only read, or that can be safely repeated, are retried after failing
+     * to connect to the repository. Operations that create, move or delete objects are never retried.
+     */
+    @Configurable
+    @Default("0")
+    Integer retries;
+
+    /**
+     * Maximum delay in milliseconds before the first retry, doubled for each further retry. The actual delay
+     * is random, up to that maximum.
+     */
+    @Configurable
+    @Default("100")
+    Long retryBackoff;
+
+    /**
+     * Maximum delay in milliseconds before any retry.
+     */
+    @Configurable
+    @Default("5000")
+    Long retryMaxBackoff;
+
+    /**
+     * Whether the number of concurrent calls to the repository is limited. The limit grows while the repository
+     * answers as fast as usual and shrinks when its latency increases or calls fail to connect.
+     */
+    @Configurable
+    @Default("false")
+    Boolean concurrencyLimiter;
+
+    /**
+     * Number of concurrent calls allowed when the connector starts.
+     */
+    @Configurable
+    @Default("10")
+    Integer concurrencyLimit;
+
+    /**
+     * Lowest number of concurrent calls the limiter can shrink to.
+     */
+    @Configurable
+    @Default("1")
+    Integer minConcurrencyLimit;
+
+    /**
+     * Highest number of concurrent calls the limiter can grow to.
+     */
+    @Configurable
+    @Default("100")
+    Integer maxConcurrencyLimit;
+
+    /**
+     * Milliseconds a call waits for the limiter before failing with CMISConnectorQueueTimeoutException.
+     */
+    @Configurable
+    @Default("5000")
+    Long concurrencyQueueTimeout;
+
+    private volatile CMISFacade facade;
+    private volatile String connectionIdentifier;
+
+    @Inject
+    private MuleContext muleContext;
 
     public CMISConnector() {
         threadSafeLock = new Object();
@@ -118,42 +402,141 @@ public class CMISConnector implements CMISFacade {
                             "parameters to the connector. The connector is currently non-functional.");
         }
 
+        // Prevent re-initialization, without locking once connected
+        if (facade != null) {
+            return;
+        }
+
         synchronized (threadSafeLock) {
-            // Prevent re-initialization
             if (facade == null) {
                 setConnectionIdentifier(username + "@" + baseUrl);
+                MBeanRegistry.connected(getApplicationName());
+                boolean connected = false;
+                try {
+                    // Publish the facade only once it is usable
+                    this.facade = createFacade(baseUrl, username, password);
+                    connected = true;
+                } finally {
+                    if (!connected) {
+                        MBeanRegistry.disconnected();
+                    }
+                }
+            }
+        }
+    }
 
-                this.facade =
-                        CMISFacadeAdaptor.adapt(
-                                new ChemistryCMISFacade(
-                                        username,
-                                        password,
-                                        baseUrl,
-                                        getRepositoryId(),
-                                        getEndpoint(),
-                                        getConnectionTimeout(),
-                                        getCxfPortProvider(),
-                                        getUseAlfrescoExtension(),
-                                        getUseCookies()));
-
-                // Force a call to an operation in order to create the client and force authentication
-                repositoryInfo();
+    private CMISFacade createFacade(String baseUrl, String username, String password) {
+        ChemistryCMISFacade chemistryFacade =
+                new ChemistryCMISFacade(
+                        username,
+                        password,
+                        baseUrl,
+                        getRepositoryId(),
+                        getEndpoint(),
+                        getConnectionTimeout(),
+                        getCxfPortProvider(),
+                        getUseAlfrescoExtension(),
+                        getUseCookies(),
+                        // A missing repository ID is resolved below, through the repository cache
+                        true);
+
+        Map<OperationClass, String> readTimeouts = new EnumMap<OperationClass, String>(OperationClass.class);
+        putIfNotBlank(readTimeouts, OperationClass.METADATA, getMetadataReadTimeout());
+        putIfNotBlank(readTimeouts, OperationClass.QUERY, getQueryReadTimeout());
+        putIfNotBlank(readTimeouts, OperationClass.CONTENT, getContentReadTimeout());
+        putIfNotBlank(readTimeouts, OperationClass.TREE, getTreeReadTimeout());
+        chemistryFacade.setReadTimeouts(StringUtils.trimToNull(getReadTimeout()), readTimeouts);
+        chemistryFacade.setOperationTimeout(getOperationTimeout());
+        if (getRepositoryCacheTtl() != null) {
+            chemistryFacade.setRepositoryCacheTtl(getRepositoryCacheTtl());
+        }
+        if (Boolean.TRUE.equals(getTypeDefinitionCache())) {
+            List<String> types = new ArrayList<String>();
+            for (String type : StringUtils.split(StringUtils.defaultString(getPreloadTypes()), ',')) {
+                if (StringUtils.isNotBlank(type)) {
+                    types.add(type.trim());
+                }
             }
+            chemistryFacade.setTypeDefinitionCache(TypeDefinitionCache.shared(repositoryKey()), types);
+        }
+
+        if (getEndpoint() == CMISConnectionType.SOAP && StringUtils.isNotBlank(getWsdlCacheDirectory())) {
+            chemistryFacade.setWsdlCache(new WsdlCache(new File(getWsdlCacheDirectory()), baseUrl, username, password,
+                    NumberUtils.toInt(getConnectionTimeout(), 10000)));
+        }
+
+        if (Boolean.TRUE.equals(getCoalesceReads())) {
+            chemistryFacade.setObjectReads(SingleFlight.<CmisObject>shared(repositoryKey()));
+        }
+
+        if (Boolean.TRUE.equals(getMissingPathCache())) {
+            chemistryFacade.setMissingPathCache(MissingPathCache.shared(repositoryKey(),
+                    getMissingPathCacheSize(), getMissingPathCacheTtl()));
+        }
+
+        if (getDeduplication() != null && getDeduplication() != DeduplicationMode.NONE) {
+            chemistryFacade.setDeduplication(getDeduplication(),
+                    DeduplicationIndex.shared(repositoryKey(), getDeduplicationIndexSize()),
+                    getDeduplicationHashProperty());
+        }
+
+        if (Boolean.TRUE.equals(getSpoolUploads())) {
+            chemistryFacade.setUploadSpooler(UploadSpooler.shared(getConnectionIdentifier(), getSpoolMemoryThreshold()));
+        }
+
+        if (StringUtils.isNotBlank(getContentCacheDirectory())) {
+            chemistryFacade.setContentCache(ContentCache.shared(getContentCacheDirectory(), getContentCacheMaxSize()));
+        }
+
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(chemistryFacade,
+                StringUtils.isNotBlank(getMetricsName()) ? ConnectorMetrics.shared(getMetricsName()) : null,
+                Boolean.TRUE.equals(getCircuitBreaker()) ?
+                        CircuitBreaker.shared(getConnectionIdentifier(), getCircuitBreakerFailureRate(),
+                                getCircuitBreakerWindow(), getCircuitBreakerOpenTime()) : null,
+                getRetries() != null && getRetries() > 0 ?
+                        new RetryPolicy(getRetries(), getRetryBackoff(), getRetryMaxBackoff()) : null,
+                Boolean.TRUE.equals(getConcurrencyLimiter()) ?
+                        ConcurrencyLimiter.shared(getConnectionIdentifier(), getConcurrencyLimit(),
+                                getMinConcurrencyLimit(), getMaxConcurrencyLimit(),
+                                getConcurrencyQueueTimeout()) : null);
+
+        if (Boolean.TRUE.equals(getAsyncConnect())) {
+            SessionWarmUp.start(adapted, getConnectionIdentifier());
+        } else {
+            // Force a call to an operation in order to create the client and force authentication
+            adapted.repositoryInfo();
+        }
+
+        return adapted;
+    }
+
+    private static void putIfNotBlank(Map<OperationClass, String> timeouts, OperationClass operationClass, String timeout) {
+        if (StringUtils.isNotBlank(timeout)) {
+            timeouts.put(operationClass, timeout.trim());
         }
     }
 
     @Disconnect
     public void disconnect() {
         synchronized (threadSafeLock) {
-            facade = null;
+            if (facade != null) {
+                facade = null;
+                MBeanRegistry.disconnected();
+            }
         }
     }
 
+    /**
+     * Unregisters the MBeans of the application once its last connection is disposed.
+     */
+    @Dispose
+    public void dispose() {
+        disconnect();
+    }
+
     @ValidateConnection
     public boolean isConnected() {
-        synchronized (threadSafeLock) {
-            return facade != null;
-        }
+        return facade != null;
     }
 
     @ConnectionIdentifier
@@ -165,6 +548,15 @@ public class CMISConnector implements CMISFacade {
         this.connectionIdentifier = connectionIdentifier;
     }
 
+    /**
+     * Key of the state shared by the connections to the same repository. Unlike the connection identifier it
+     * tells apart the repositories of the same server, as their objects, paths and types differ.
+     */
+    private String repositoryKey() {
+        return StringUtils.isBlank(getRepositoryId()) ? getConnectionIdentifier() :
+                getConnectionIdentifier() + "/" + getRepositoryId().trim();
+    }
+
     /**
      * Returns all repositories that are available at the endpoint.
      * <p/>
@@ -236,6 +628,35 @@ public class CMISConnector implements CMISFacade {
         return facade.getObjectByPath(path);
     }
 
+    /**
+     * Checks whether an object exists at the given path. Only the object id is transferred, which makes
+     * it a cheap way to decide between creating and updating an object.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:exists}
+     *
+     * @param path Path of the object
+     * @return whether an object exists at the path
+     */
+    @Override
+    @Processor
+    public boolean exists(String path) {
+        return facade.exists(path);
+    }
+
+    /**
+     * Returns the id of the object at the given path. Only the object id and change token are transferred.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:getObjectIdByPath}
+     *
+     * @param path Path of the object
+     * @return the id of the object or null if there is no object at the path
+     */
+    @Override
+    @Processor
+    public String getObjectIdByPath(String path) {
+        return facade.getObjectIdByPath(path);
+    }
+
     /**
      * Creates a new document in the repository where the content comes directly from the payload and
      * the target folder node is specified by a repository path.
@@ -245,6 +666,8 @@ public class CMISConnector implements CMISFacade {
      * @param folderPath      Folder in the repository that will hold the document
      * @param filename        name of the file
      * @param content         file content as specified in the payload
+     *                        A Document of the given object type is copied inside the repository together
+     *                        with its properties, which the filename and the given properties override.
      * @param mimeType        stream content-type
      * @param versioningState An enumeration specifying what the versioning state of the newly-created object MUST be. If the repository does not support versioning, the repository MUST ignore the versioningState parameter.
      *                        </br> Valid values are: <ul>
@@ -267,7 +690,7 @@ public class CMISConnector implements CMISFacade {
                                          String mimeType,
                                          VersioningState versioningState,
                                          String objectType,
-                                         @Placement(group = "Properties") @Optional Map<String, String> properties,
+                                         @Placement(group = "Properties") @Optional Map<String, Object> properties,
                                          @Default("false") boolean force) {
         return facade.createDocumentByPath(folderPath, filename, content, mimeType, versioningState,
                 objectType, properties, force);
@@ -282,6 +705,8 @@ public class CMISConnector implements CMISFacade {
      * @param folderPath      Folder in the repository that will hold the document
      * @param filename        Name of the file
      * @param content         File content
+     *                        A Document of the given object type is copied inside the repository together
+     *                        with its properties, which the filename and the given properties override.
      * @param mimeType        Stream content-type
      * @param versioningState An enumeration specifying what the versioning state of the newly-created object MUST be. If the repository does not support versioning, the repository MUST ignore the versioningState parameter.
      * @param objectType      The type of the object.
@@ -298,12 +723,51 @@ public class CMISConnector implements CMISFacade {
                                                     String mimeType,
                                                     VersioningState versioningState,
                                                     String objectType,
-                                                    @Placement(group = "Properties") @Optional Map<String, String> properties,
+                                                    @Placement(group = "Properties") @Optional Map<String, Object> properties,
                                                     @Default("false") boolean force) {
         return facade.createDocumentByPathFromContent(folderPath, filename,
                 content, mimeType, versioningState, objectType, properties, force);
     }
 
+    /**
+     * Creates a document at the given path or, if it already exists, writes its content as a single new version.
+     * The content is set in place when the repository allows content updates at any time and neither properties,
+     * a major version nor a check-in comment are given, otherwise the document is checked out and checked in
+     * so the new version gets all of them. Replaces getting the object by path, checking it out and checking it
+     * in, with fewer calls to the repository. Paths the missing path cache knows to be missing are created
+     * without looking them up, and updated if another client created them meanwhile.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:upsertDocumentByPath}
+     *
+     * @param folderPath      Folder in the repository that holds the document
+     * @param filename        Name of the file
+     * @param content         File content as specified in the payload
+     * @param mimeType        Stream content-type
+     * @param versioningState The versioning state of the document if it is created
+     * @param objectType      The type of the document if it is created
+     * @param properties      the properties optional document properties to set
+     * @param major           whether the new version is a major one, when checked in
+     * @param checkinComment  Check-in comment, when checked in
+     * @param force           if should folder structure must be created when there
+     *                        are missing intermediate folders
+     * @return the {@link ObjectId} of the created document or of its new version
+     */
+    @Override
+    @Processor
+    public ObjectId upsertDocumentByPath(String folderPath,
+                                         String filename,
+                                         @Default("#[payload]") Object content,
+                                         String mimeType,
+                                         @Default("MAJOR") VersioningState versioningState,
+                                         String objectType,
+                                         @Placement(group = "Properties") @Optional Map<String, Object> properties,
+                                         @Default("false") boolean major,
+                                         @Optional String checkinComment,
+                                         @Default("false") boolean force) {
+        return facade.upsertDocumentByPath(folderPath, filename, content, mimeType, versioningState,
+                objectType, properties, major, checkinComment, force);
+    }
+
     /**
      * Creates a new folder in the repository if it doesn't already exist.
      * <p/>
@@ -326,6 +790,8 @@ public class CMISConnector implements CMISFacade {
      * @param folderId        Folder Object Id
      * @param filename        name of the file
      * @param content         file content as specified in the payload
+     *                        A Document of the given object type is copied inside the repository together
+     *                        with its properties, which the filename and the given properties override.
      * @param mimeType        stream content-type
      * @param versioningState An enumeration specifying what the versioning state of the newly-created object MUST be. If the repository does not support versioning, the repository MUST ignore the versioningState parameter.
      *                        </br> Valid values are: <ul>
@@ -346,7 +812,7 @@ public class CMISConnector implements CMISFacade {
                                        String mimeType,
                                        VersioningState versioningState,
                                        String objectType,
-                                       @Placement(group = "Properties") @Optional Map<String, String> properties) {
+                                       @Placement(group = "Properties") @Optional Map<String, Object> properties) {
         return facade.createDocumentById(folderId, filename, content, mimeType, versioningState,
                 objectType, properties);
     }
@@ -360,6 +826,8 @@ public class CMISConnector implements CMISFacade {
      * @param folderId        Folder Object Id
      * @param filename        name of the file
      * @param content         file content
+     *                        A Document of the given object type is copied inside the repository together
+     *                        with its properties, which the filename and the given properties override.
      * @param mimeType        stream content-type
      * @param versioningState An enumeration specifying what the versioning state of the newly-created object MUST be. If the repository does not support versioning, the repository MUST ignore the versioningState parameter.
      *                        </br> Valid values are: <ul>
@@ -380,10 +848,56 @@ public class CMISConnector implements CMISFacade {
                                                   String mimeType,
                                                   VersioningState versioningState,
                                                   String objectType,
-                                                  @Placement(group = "Properties") @Optional Map<String, String> properties) {
+                                                  @Placement(group = "Properties") @Optional Map<String, Object> properties) {
         return facade.createDocumentByIdFromContent(folderId, filename, content, mimeType, versioningState, objectType, properties);
     }
 
+    /**
+     * Copies a document into a folder. The copy is made by the repository (createDocumentFromSource), so the
+     * content is not transferred through the connector when the binding supports it.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:copyDocument}
+     *
+     * @param document        The document to copy. Can be null if "documentId" is set.
+     * @param documentId      Id of the document to copy. Can be null if "document" is set.
+     * @param targetFolderId  Id of the folder that will hold the copy
+     * @param filename        Name of the copy. The name of the source document is kept if not set.
+     * @param versioningState The versioning state of the copy. The repository default is used if not set.
+     * @param properties      properties of the copy that differ from the source document
+     * @return the {@link ObjectId} of the copy
+     */
+    @Override
+    @Processor
+    public ObjectId copyDocument(@Default("#[payload]") CmisObject document,
+                                 @Optional String documentId,
+                                 String targetFolderId,
+                                 @Optional String filename,
+                                 @Optional VersioningState versioningState,
+                                 @Placement(group = "Properties") @Optional Map<String, Object> properties) {
+        return facade.copyDocument(document, documentId, targetFolderId, filename, versioningState, properties);
+    }
+
+    /**
+     * Copies a folder with all its sub folders and documents into another folder. Documents are copied
+     * by the repository, in parallel.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:copyFolderTree}
+     *
+     * @param folder         The folder to copy. Can be null if "folderId" is set.
+     * @param folderId       Id of the folder to copy. Can be null if "folder" is set.
+     * @param targetFolderId Id of the folder that will hold the copy
+     * @param threads        Maximum number of folders and documents copied at the same time
+     * @return the {@link ObjectId} of the copy of the folder
+     */
+    @Override
+    @Processor
+    public ObjectId copyFolderTree(@Default("#[payload]") CmisObject folder,
+                                   @Optional String folderId,
+                                   String targetFolderId,
+                                   @Default("4") int threads) {
+        return facade.copyFolderTree(folder, folderId, targetFolderId, threads);
+    }
+
     /**
      * Creates a folder. Note that this is not recursive creation. Just creates
      * one folder
@@ -520,6 +1034,32 @@ public class CMISConnector implements CMISFacade {
         return facade.getContentStream(cmisObject, objectId);
     }
 
+    /**
+     * Downloads the content of a Document into a local file. The content is split in byte ranges
+     * that are fetched concurrently and written at their position in the file, which is then
+     * verified by size and, if a checksum is given, by checksum.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:downloadContent}
+     *
+     * @param cmisObject        The document to download. Can be null if "objectId" is set.
+     * @param objectId          Id of the document to download. Can be null if "object" is set.
+     * @param targetPath        Path of the local file to write
+     * @param ranges            Maximum number of byte ranges fetched concurrently
+     * @param checksumAlgorithm Digest algorithm used to verify the file (eg: SHA-256, MD5)
+     * @param checksum          Expected hex encoded checksum of the content. The checksum is not verified if not set.
+     * @return the downloaded {@link File}
+     */
+    @Override
+    @Processor
+    public File downloadContent(@Default("#[payload]") CmisObject cmisObject,
+                                @Optional String objectId,
+                                String targetPath,
+                                @Default("4") int ranges,
+                                @Default("SHA-256") String checksumAlgorithm,
+                                @Optional String checksum) {
+        return facade.downloadContent(cmisObject, objectId, targetPath, ranges, checksumAlgorithm, checksum);
+    }
+
     /**
      * Moves a fileable cmis object from one location to another. Take into account that a fileable
      * object may be filled in several locations. Thats why you must specify a source folder.
@@ -542,7 +1082,9 @@ public class CMISConnector implements CMISFacade {
     }
 
     /**
-     * Update an object's properties
+     * Update an object's properties. Values can be given typed or as strings, which are converted for the
+     * property definitions of the object type: ISO 8601 for date times, comma separated values for keys
+     * prefixed with {@code M:}.
      * <p/>
      * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:updateObjectProperties}
      *
@@ -555,7 +1097,7 @@ public class CMISConnector implements CMISFacade {
     @Processor
     public CmisObject updateObjectProperties(@Default("#[payload]") CmisObject cmisObject,
                                              @Optional String objectId,
-                                             @Placement(group = "Properties") Map<String, String> properties) {
+                                             @Placement(group = "Properties") Map<String, Object> properties) {
         return facade.updateObjectProperties(cmisObject, objectId, properties);
     }
 
@@ -668,7 +1210,7 @@ public class CMISConnector implements CMISFacade {
                             String mimeType,
                             @Default("false") boolean major,
                             String checkinComment,
-                            @Placement(group = "Properties") @Optional Map<String, String> properties) {
+                            @Placement(group = "Properties") @Optional Map<String, Object> properties) {
         return facade.checkIn(document, documentId, content, filename, mimeType, major, checkinComment, properties);
     }
 
@@ -783,7 +1325,7 @@ public class CMISConnector implements CMISFacade {
     @Processor
     public void applyAspect(String objectId,
                             String aspectName,
-                            @Default("#[payload]") Map<String, String> properties) {
+                            @Default("#[payload]") Map<String, Object> properties) {
         facade.applyAspect(objectId, aspectName, properties);
     }
 
@@ -806,6 +1348,77 @@ public class CMISConnector implements CMISFacade {
         return facade.createRelationship(parentObjectId, childObjectId, relationshipType);
     }
 
+    /**
+     * Copies CMIS objects or query results into immutable, serializable objects holding only the given
+     * properties. Unlike the objects returned by the other operations, they hold no reference to the session,
+     * type definitions, ACLs or policies, so they are cheap to keep in flow variables and can be stored in a
+     * clustered object store. Iterables such as query results are read until their end. The values of query
+     * results are kept as lists, as the repository does not tell their single-valued columns apart.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:detach}
+     *
+     * @param source     An object, a query result or a list or iterable of them
+     * @param properties Comma separated ids of the properties to keep, all of them if not set
+     * @return a {@link DetachedObject} or a list of them
+     */
+    @Override
+    @Processor
+    public Object detach(@Default("#[payload]") Object source, @Optional String properties) {
+        return facade.detach(source, properties);
+    }
+
+    /**
+     * Writes CMIS objects, query results, folder trees or change events as JSON, either as a single array or as
+     * one object per line (NDJSON). The JSON is written when the payload is consumed, for instance by an HTTP
+     * response or a file outbound endpoint, and query results or folder children are fetched page by page
+     * while it is written, so the results are never held in memory as a whole.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:toJson}
+     *
+     * @param source     An object, a query result, a folder tree, change events or a list or iterable of them
+     * @param format     Whether to write a single JSON array or one JSON object per line
+     * @param properties Comma separated ids of the properties to write, all of them if not set
+     * @return an {@link OutputHandler} writing the JSON
+     */
+    @Override
+    @Processor
+    public OutputHandler toJson(@Default("#[payload]") Object source,
+                                @Default("JSON") JsonFormat format,
+                                @Optional String properties) {
+        return facade.toJson(source, format, properties);
+    }
+
+    /**
+     * Exports the results of a query into a local NDJSON or CSV file. Results are written page by page
+     * through a buffered file channel while the next page is fetched in the background, so large result
+     * sets are never held in memory.
+     * <p/>
+     * {@sample.xml ../../../doc/cmis-connector.xml.sample cmis:exportQuery}
+     *
+     * @param statement         the query statement (CMIS query language)
+     * @param targetPath        Path of the local file to write
+     * @param format            The format of the file, NDJSON or CSV
+     * @param columns           Comma separated ids of the properties to write, in order. All of them if not set,
+     *                          in which case the CSV header is taken from the first result
+     * @param orderBy           comma-separated list of query names and the ascending modifier
+     *                          "ASC" or the descending modifier "DESC" for each query name
+     * @param searchAllVersions specifies if the latest and non-latest versions
+     *                          of document objects should be included
+     * @param pageSize          The number of results fetched per request
+     * @return the exported {@link File}
+     */
+    @Override
+    @Processor
+    public File exportQuery(@Placement(order = 1) String statement,
+                            @Placement(order = 2) String targetPath,
+                            @Placement(order = 3) @Default("NDJSON") ExportFormat format,
+                            @Placement(order = 4) @Optional String columns,
+                            @Placement(order = 5) @Optional String orderBy,
+                            @Placement(order = 6) @Default("false") Boolean searchAllVersions,
+                            @Placement(order = 7) @Default("500") int pageSize) {
+        return facade.exportQuery(statement, searchAllVersions, orderBy, targetPath, format, columns, pageSize);
+    }
+
     public String getRepositoryId() {
         return repositoryId;
     }
@@ -854,6 +1467,298 @@ public class CMISConnector implements CMISFacade {
         this.endpoint = endpoint;
     }
 
+    public DeduplicationMode getDeduplication() {
+        return deduplication;
+    }
+
+    public void setDeduplication(DeduplicationMode deduplication) {
+        this.deduplication = deduplication;
+    }
+
+    public String getDeduplicationHashProperty() {
+        return deduplicationHashProperty;
+    }
+
+    public void setDeduplicationHashProperty(String deduplicationHashProperty) {
+        this.deduplicationHashProperty = deduplicationHashProperty;
+    }
+
+    public Integer getDeduplicationIndexSize() {
+        return deduplicationIndexSize;
+    }
+
+    public void setDeduplicationIndexSize(Integer deduplicationIndexSize) {
+        this.deduplicationIndexSize = deduplicationIndexSize;
+    }
+
+    public String getContentCacheDirectory() {
+        return contentCacheDirectory;
+    }
+
+    public void setContentCacheDirectory(String contentCacheDirectory) {
+        this.contentCacheDirectory = contentCacheDirectory;
+    }
+
+    public Long getContentCacheMaxSize() {
+        return contentCacheMaxSize;
+    }
+
+    public void setContentCacheMaxSize(Long contentCacheMaxSize) {
+        this.contentCacheMaxSize = contentCacheMaxSize;
+    }
+
+    public Boolean getSpoolUploads() {
+        return spoolUploads;
+    }
+
+    public void setSpoolUploads(Boolean spoolUploads) {
+        this.spoolUploads = spoolUploads;
+    }
+
+    public Integer getSpoolMemoryThreshold() {
+        return spoolMemoryThreshold;
+    }
+
+    public void setSpoolMemoryThreshold(Integer spoolMemoryThreshold) {
+        this.spoolMemoryThreshold = spoolMemoryThreshold;
+    }
+
+    public String getMetricsName() {
+        return metricsName;
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
+    }
+
+    public Boolean getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(Boolean circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Integer getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+
+    public void setCircuitBreakerFailureRate(Integer circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+    }
+
+    public Integer getCircuitBreakerWindow() {
+        return circuitBreakerWindow;
+    }
+
+    public void setCircuitBreakerWindow(Integer circuitBreakerWindow) {
+        this.circuitBreakerWindow = circuitBreakerWindow;
+    }
+
+    public Long getCircuitBreakerOpenTime() {
+        return circuitBreakerOpenTime;
+    }
+
+    public void setCircuitBreakerOpenTime(Long circuitBreakerOpenTime) {
+        this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+    }
+
+    public Integer getRetries() {
+        return retries;
+    }
+
+    public void setRetries(Integer retries) {
+        this.retries = retries;
+    }
+
+    public Long getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Long getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    public void setRetryMaxBackoff(Long retryMaxBackoff) {
+        this.retryMaxBackoff = retryMaxBackoff;
+    }
+
+    public Boolean getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public void setConcurrencyLimiter(Boolean concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public Integer getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(Integer concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public Integer getMinConcurrencyLimit() {
+        return minConcurrencyLimit;
+    }
+
+    public void setMinConcurrencyLimit(Integer minConcurrencyLimit) {
+        this.minConcurrencyLimit = minConcurrencyLimit;
+    }
+
+    public Integer getMaxConcurrencyLimit() {
+        return maxConcurrencyLimit;
+    }
+
+    public void setMaxConcurrencyLimit(Integer maxConcurrencyLimit) {
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
+    }
+
+    public Long getConcurrencyQueueTimeout() {
+        return concurrencyQueueTimeout;
+    }
+
+    public void setConcurrencyQueueTimeout(Long concurrencyQueueTimeout) {
+        this.concurrencyQueueTimeout = concurrencyQueueTimeout;
+    }
+
+    public String getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(String readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public String getMetadataReadTimeout() {
+        return metadataReadTimeout;
+    }
+
+    public void setMetadataReadTimeout(String metadataReadTimeout) {
+        this.metadataReadTimeout = metadataReadTimeout;
+    }
+
+    public String getQueryReadTimeout() {
+        return queryReadTimeout;
+    }
+
+    public void setQueryReadTimeout(String queryReadTimeout) {
+        this.queryReadTimeout = queryReadTimeout;
+    }
+
+    public String getContentReadTimeout() {
+        return contentReadTimeout;
+    }
+
+    public void setContentReadTimeout(String contentReadTimeout) {
+        this.contentReadTimeout = contentReadTimeout;
+    }
+
+    public String getTreeReadTimeout() {
+        return treeReadTimeout;
+    }
+
+    public void setTreeReadTimeout(String treeReadTimeout) {
+        this.treeReadTimeout = treeReadTimeout;
+    }
+
+    public Long getOperationTimeout() {
+        return operationTimeout;
+    }
+
+    public void setOperationTimeout(Long operationTimeout) {
+        this.operationTimeout = operationTimeout;
+    }
+
+    public String getWsdlCacheDirectory() {
+        return wsdlCacheDirectory;
+    }
+
+    public void setWsdlCacheDirectory(String wsdlCacheDirectory) {
+        this.wsdlCacheDirectory = wsdlCacheDirectory;
+    }
+
+    public Boolean getAsyncConnect() {
+        return asyncConnect;
+    }
+
+    public void setAsyncConnect(Boolean asyncConnect) {
+        this.asyncConnect = asyncConnect;
+    }
+
+    public Long getRepositoryCacheTtl() {
+        return repositoryCacheTtl;
+    }
+
+    public void setRepositoryCacheTtl(Long repositoryCacheTtl) {
+        this.repositoryCacheTtl = repositoryCacheTtl;
+    }
+
+    public Boolean getTypeDefinitionCache() {
+        return typeDefinitionCache;
+    }
+
+    public void setTypeDefinitionCache(Boolean typeDefinitionCache) {
+        this.typeDefinitionCache = typeDefinitionCache;
+    }
+
+    public String getPreloadTypes() {
+        return preloadTypes;
+    }
+
+    public void setPreloadTypes(String preloadTypes) {
+        this.preloadTypes = preloadTypes;
+    }
+
+    public Boolean getMissingPathCache() {
+        return missingPathCache;
+    }
+
+    public void setMissingPathCache(Boolean missingPathCache) {
+        this.missingPathCache = missingPathCache;
+    }
+
+    public Long getMissingPathCacheTtl() {
+        return missingPathCacheTtl;
+    }
+
+    public void setMissingPathCacheTtl(Long missingPathCacheTtl) {
+        this.missingPathCacheTtl = missingPathCacheTtl;
+    }
+
+    public Integer getMissingPathCacheSize() {
+        return missingPathCacheSize;
+    }
+
+    public void setMissingPathCacheSize(Integer missingPathCacheSize) {
+        this.missingPathCacheSize = missingPathCacheSize;
+    }
+
+    public Boolean getCoalesceReads() {
+        return coalesceReads;
+    }
+
+    public void setCoalesceReads(Boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
+
+    public void setMuleContext(MuleContext muleContext) {
+        this.muleContext = muleContext;
+    }
+
+    /**
+     * @return the name of the application, which tells apart the MBeans of the applications of the same server
+     */
+    private String getApplicationName() {
+        return muleContext != null && muleContext.getConfiguration() != null ?
+                muleContext.getConfiguration().getId() : null;
+    }
+
     public CMISFacade getFacade() {
         return facade;
     }
@@ -12,7 +12,9 @@ import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
+import org.mule.api.transport.OutputHandler;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
@@ -57,6 +59,22 @@ public interface CMISFacade {
      */
     CmisObject getObjectByPath(String path);
 
+    /**
+     * Checks whether an object exists at the given path, transferring only its id.
+     *
+     * @param path path of the object
+     * @return whether an object exists at the path
+     */
+    boolean exists(String path);
+
+    /**
+     * Returns the id of the object at the given path, transferring only its id and change token.
+     *
+     * @param path path of the object
+     * @return the id of the object or null if there is no object at the path
+     */
+    String getObjectIdByPath(String path);
+
     /**
      * Creates a new document in the repository where the content comes directly from the payload and
      * the target folder node is specified by a repository path.
@@ -82,7 +100,7 @@ public interface CMISFacade {
                                   String mimeType,
                                   VersioningState versioningState,
                                   String objectType,
-                                  Map<String, String> properties,
+                                  Map<String, Object> properties,
                                   boolean force);
 
 
@@ -107,9 +125,39 @@ public interface CMISFacade {
                                              String mimeType,
                                              VersioningState versioningState,
                                              String objectType,
-                                             Map<String, String> properties,
+                                             Map<String, Object> properties,
                                              boolean force);
 
+    /**
+     * Creates a document at the given path or, if it already exists, writes its content as a single new version.
+     * The content is set in place when the repository allows content updates at any time and neither properties,
+     * a major version nor a check-in comment are given, otherwise the document is checked out and checked in.
+     * Paths known to be missing are created without looking them up, and updated if they exist after all.
+     *
+     * @param folderPath      Folder in the repository that holds the document
+     * @param filename        Name of the file
+     * @param content         File content
+     * @param mimeType        Stream content-type
+     * @param versioningState The versioning state of the document if it is created
+     * @param objectType      The type of the document if it is created
+     * @param properties      the properties optional document properties to set
+     * @param major           whether the new version is a major one, when checked in
+     * @param checkinComment  Check-in comment, when checked in
+     * @param force           if should folder structure must be created when there
+     *                        are missing intermediate folders
+     * @return the {@link ObjectId} of the created document or of its new version
+     */
+    ObjectId upsertDocumentByPath(String folderPath,
+                                  String filename,
+                                  Object content,
+                                  String mimeType,
+                                  VersioningState versioningState,
+                                  String objectType,
+                                  Map<String, Object> properties,
+                                  boolean major,
+                                  String checkinComment,
+                                  boolean force);
+
     /**
      * Creates a new folder in the repository if it doesn't already exist
      *
@@ -117,6 +165,33 @@ public interface CMISFacade {
      */
     CmisObject getOrCreateFolderByPath(String folderPath);
 
+    /**
+     * Copies a document into a folder. The copy is made by the repository, so the content
+     * is not transferred through the connector when the binding supports it.
+     *
+     * @param document        The document to copy. Can be null if "documentId" is set.
+     * @param documentId      Id of the document to copy. Can be null if "document" is set.
+     * @param targetFolderId  Id of the folder that will hold the copy
+     * @param filename        Name of the copy. The name of the source document is kept if null.
+     * @param versioningState The versioning state of the copy. The repository default is used if null.
+     * @param properties      properties of the copy that differ from the source document
+     * @return the {@link ObjectId} of the copy
+     */
+    ObjectId copyDocument(CmisObject document, String documentId, String targetFolderId, String filename,
+                          VersioningState versioningState, Map<String, Object> properties);
+
+    /**
+     * Copies a folder with all its sub folders and documents into another folder. Documents are
+     * copied by the repository, in parallel.
+     *
+     * @param folder         The folder to copy. Can be null if "folderId" is set.
+     * @param folderId       Id of the folder to copy. Can be null if "folder" is set.
+     * @param targetFolderId Id of the folder that will hold the copy
+     * @param threads        Maximum number of folders and documents copied at the same time
+     * @return the {@link ObjectId} of the copy of the folder
+     */
+    ObjectId copyFolderTree(CmisObject folder, String folderId, String targetFolderId, int threads);
+
     /**
      * Creates a folder. Note that this is not recusive creation. You just create
      * one folder
@@ -150,7 +225,7 @@ public interface CMISFacade {
                                 String mimeType,
                                 VersioningState versioningState,
                                 String objectType,
-                                Map<String, String> properties);
+                                Map<String, Object> properties);
 
 
     /**
@@ -176,7 +251,7 @@ public interface CMISFacade {
                                            String mimeType,
                                            VersioningState versioningState,
                                            String objectType,
-                                           Map<String, String> properties);
+                                           Map<String, Object> properties);
 
     /**
      * Returns the type definition of the given type id.
@@ -254,6 +329,21 @@ public interface CMISFacade {
      */
     ContentStream getContentStream(CmisObject cmisObject, String objectId);
 
+    /**
+     * Downloads the content of a Document into a local file. The content is split in byte ranges
+     * that are fetched concurrently and written at their position in the file.
+     *
+     * @param cmisObject        The document to download. Can be null if "objectId" is set.
+     * @param objectId          Id of the document to download. Can be null if "object" is set.
+     * @param targetPath        Path of the local file to write
+     * @param ranges            Maximum number of byte ranges fetched concurrently
+     * @param checksumAlgorithm Digest algorithm used to verify the file (eg: SHA-256, MD5)
+     * @param checksum          Expected hex encoded checksum of the content. The checksum is not verified if null.
+     * @return the downloaded file.
+     */
+    File downloadContent(CmisObject cmisObject, String objectId, String targetPath,
+                         int ranges, String checksumAlgorithm, String checksum);
+
     /**
      * Moves a fileable cmis object from one location to another. Take into account that a fileable
      * object may be filled in several locations. Thats why you must specify a source folder.
@@ -279,7 +369,7 @@ public interface CMISFacade {
      */
     CmisObject updateObjectProperties(CmisObject cmisObject,
                                       String objectId,
-                                      Map<String, String> properties);
+                                      Map<String, Object> properties);
 
     /**
      * Remove an object
@@ -388,7 +478,7 @@ public interface CMISFacade {
      */
     ObjectId checkIn(CmisObject document, String documentId,
                      Object content, String filename,
-                     String mimeType, boolean major, String checkinComment, Map<String, String> properties);
+                     String mimeType, boolean major, String checkinComment, Map<String, Object> properties);
 
     /**
      * Get the policies that are applied to an object.
@@ -418,7 +508,7 @@ public interface CMISFacade {
      */
     void applyAspect(String objectId,
                      String aspectName,
-                     Map<String, String> properties);
+                     Map<String, Object> properties);
 
 
     /**
@@ -431,4 +521,43 @@ public interface CMISFacade {
      * @return The {@link ObjectId} that is the result of the relationship
      */
     ObjectId createRelationship(String parentObjectId, String childObjectId, String relationshipType);
+
+    /**
+     * Copies CMIS objects or query results into immutable, serializable {@link DetachedObject}s holding only
+     * the given properties and no reference to the session.
+     *
+     * @param source     An object, a query result or a list or iterable of them
+     * @param properties Comma separated ids of the properties to keep, all of them if null
+     * @return a {@link DetachedObject} or a list of them
+     */
+    Object detach(Object source, String properties);
+
+    /**
+     * Writes CMIS objects, query results, folder trees or change events as JSON when the returned handler is
+     * written. Iterables such as query results or folder children are read page by page while they are written.
+     *
+     * @param source     An object, a query result, a folder tree, change events or a list or iterable of them
+     * @param format     Whether to write a single JSON array or one JSON object per line
+     * @param properties Comma separated ids of the properties to write, all of them if null
+     * @return an {@link OutputHandler} writing the JSON
+     */
+    OutputHandler toJson(Object source, JsonFormat format, String properties);
+
+    /**
+     * Exports the results of a query into a local file, page by page, fetching the next page while the
+     * current one is written.
+     *
+     * @param statement         the query statement (CMIS query language)
+     * @param searchAllVersions specifies if the latest and non-latest versions
+     *                          of document objects should be included
+     * @param orderBy           comma-separated list of query names and the ascending modifier
+     *                          "ASC" or the descending modifier "DESC" for each query name
+     * @param targetPath        Path of the local file to write
+     * @param format            The format of the file
+     * @param columns           Comma separated ids of the properties to write, in order. All of them if null
+     * @param pageSize          The number of results fetched per request
+     * @return the exported {@link File}
+     */
+    File exportQuery(String statement, Boolean searchAllVersions, String orderBy, String targetPath,
+                     ExportFormat format, String columns, int pageSize);
 }
\ No newline at end of file
@@ -5,66 +5,889 @@
 
 package org.mule.module.cmis;
 
+import org.apache.chemistry.opencmis.client.api.*;
+import org.apache.chemistry.opencmis.commons.data.Ace;
+import org.apache.chemistry.opencmis.commons.data.Acl;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
+import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.cmis.exception.CMISConnectorConnectionException;
-import org.mule.module.cmis.exception.CMISConnectorException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
 
-public class CMISFacadeAdaptor {
+/**
+ * Delegating {@link CMISFacade} that translates the connection failures of the repository into
+ * {@link CMISConnectorConnectionException}, so the connector reconnects, and records the metrics of each operation.
+ * Optionally retries idempotent operations with a randomized exponential backoff, fails fast while
+ * a circuit breaker is open and bounds the number of concurrent calls to the repository.
+ */
+public class CMISFacadeAdaptor implements CMISFacade {
 
     private static final Logger logger = LoggerFactory.getLogger(CMISFacadeAdaptor.class);
 
-    private CMISFacadeAdaptor() {
+    private final CMISFacade facade;
+    private final ConnectorMetrics metrics;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final ConcurrencyLimiter concurrencyLimiter;
 
+    private CMISFacadeAdaptor(CMISFacade facade, ConnectorMetrics metrics, CircuitBreaker circuitBreaker,
+                              RetryPolicy retryPolicy, ConcurrencyLimiter concurrencyLimiter) {
+        this.facade = facade;
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     public static CMISFacade adapt(CMISFacade facade) {
-        return (CMISFacade) Proxy.newProxyInstance(CMISFacadeAdaptor.class.getClassLoader(),
-                new Class[]{CMISFacade.class}, new MyInvocationHandler(facade));
+        return adapt(facade, null, null, null, null);
+    }
+
+    /**
+     * @param metrics        where the latency, errors and transferred bytes of each operation are recorded, can be null
+     * @param circuitBreaker stops calling the repository while it keeps failing, can be null
+     * @param retryPolicy    retries idempotent operations after connection failures, can be null
+     */
+    public static CMISFacade adapt(CMISFacade facade, ConnectorMetrics metrics,
+                                   CircuitBreaker circuitBreaker, RetryPolicy retryPolicy) {
+        return adapt(facade, metrics, circuitBreaker, retryPolicy, null);
     }
 
-    private static class MyInvocationHandler implements InvocationHandler {
-        private final CMISFacade facade;
+    /**
+     * @param concurrencyLimiter bounds the number of concurrent calls to the repository, can be null
+     */
+    public static CMISFacade adapt(CMISFacade facade, ConnectorMetrics metrics, CircuitBreaker circuitBreaker,
+                                   RetryPolicy retryPolicy, ConcurrencyLimiter concurrencyLimiter) {
+        return new CMISFacadeAdaptor(facade, metrics, circuitBreaker, retryPolicy, concurrencyLimiter);
+    }
 
-        private MyInvocationHandler(CMISFacade facade) {
-            this.facade = facade;
+    @Override
+    public List<Repository> repositories() {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.REPOSITORIES);
+            try {
+                return returned(invocation, facade.repositories());
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.REPOSITORIES, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
         }
+    }
 
-        @Override
-        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Invoked method {0} with arguments {1}", method.getName(), args);
+    @Override
+    public RepositoryInfo repositoryInfo() {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.REPOSITORY_INFO);
+            try {
+                return returned(invocation, facade.repositoryInfo());
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.REPOSITORY_INFO, invocation, e, attempt);
+            } finally {
+                end(invocation);
             }
+        }
+    }
 
+    @Override
+    public ChangeEvents changelog(String changeLogToken, boolean includeProperties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CHANGELOG);
             try {
-                Object ret = method.invoke(facade, args);
+                return returned(invocation, facade.changelog(changeLogToken, includeProperties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CHANGELOG, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
 
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Returned method {0} with value {1}", ret);
-                }
-                return ret;
-            } catch (InvocationTargetException e) {
-                if (logger.isWarnEnabled()) {
-                    logger.warn("Method " + method.getName() + " thew " + e.getClass(), e);
-                }
+    @Override
+    public CmisObject getObjectById(String objectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_OBJECT_BY_ID);
+            try {
+                return returned(invocation, facade.getObjectById(objectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_OBJECT_BY_ID, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public CmisObject getObjectByPath(String path) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_OBJECT_BY_PATH);
+            try {
+                return returned(invocation, facade.getObjectByPath(path));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_OBJECT_BY_PATH, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String path) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.EXISTS);
+            try {
+                return returned(invocation, facade.exists(path));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.EXISTS, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public String getObjectIdByPath(String path) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_OBJECT_ID_BY_PATH);
+            try {
+                return returned(invocation, facade.getObjectIdByPath(path));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_OBJECT_ID_BY_PATH, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId createDocumentByPath(String folderPath,
+                                         String filename,
+                                         Object content,
+                                         String mimeType,
+                                         VersioningState versioningState,
+                                         String objectType,
+                                         Map<String, Object> properties,
+                                         boolean force) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CREATE_DOCUMENT_BY_PATH);
+            try {
+                return returned(invocation, facade.createDocumentByPath(folderPath, filename, content, mimeType,
+                        versioningState, objectType, properties, force));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CREATE_DOCUMENT_BY_PATH, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId createDocumentByPathFromContent(String folderPath,
+                                                    String filename,
+                                                    Object content,
+                                                    String mimeType,
+                                                    VersioningState versioningState,
+                                                    String objectType,
+                                                    Map<String, Object> properties,
+                                                    boolean force) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CREATE_DOCUMENT_BY_PATH_FROM_CONTENT);
+            try {
+                return returned(invocation, facade.createDocumentByPathFromContent(folderPath, filename, content,
+                        mimeType, versioningState, objectType, properties, force));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CREATE_DOCUMENT_BY_PATH_FROM_CONTENT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId upsertDocumentByPath(String folderPath,
+                                         String filename,
+                                         Object content,
+                                         String mimeType,
+                                         VersioningState versioningState,
+                                         String objectType,
+                                         Map<String, Object> properties,
+                                         boolean major,
+                                         String checkinComment,
+                                         boolean force) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.UPSERT_DOCUMENT_BY_PATH);
+            try {
+                return returned(invocation, facade.upsertDocumentByPath(folderPath, filename, content, mimeType,
+                        versioningState, objectType, properties, major, checkinComment, force));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.UPSERT_DOCUMENT_BY_PATH, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public CmisObject getOrCreateFolderByPath(String folderPath) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_OR_CREATE_FOLDER_BY_PATH);
+            try {
+                return returned(invocation, facade.getOrCreateFolderByPath(folderPath));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_OR_CREATE_FOLDER_BY_PATH, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId copyDocument(CmisObject document,
+                                 String documentId,
+                                 String targetFolderId,
+                                 String filename,
+                                 VersioningState versioningState,
+                                 Map<String, Object> properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.COPY_DOCUMENT);
+            try {
+                return returned(invocation, facade.copyDocument(document, documentId, targetFolderId, filename,
+                        versioningState, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.COPY_DOCUMENT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
 
-                Throwable cause = e.getCause();
+    @Override
+    public ObjectId copyFolderTree(CmisObject folder, String folderId, String targetFolderId, int threads) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.COPY_FOLDER_TREE);
+            try {
+                return returned(invocation, facade.copyFolderTree(folder, folderId, targetFolderId, threads));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.COPY_FOLDER_TREE, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId createFolder(String folderName, String parentObjectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CREATE_FOLDER);
+            try {
+                return returned(invocation, facade.createFolder(folderName, parentObjectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CREATE_FOLDER, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId createDocumentById(String folderId,
+                                       String filename,
+                                       Object content,
+                                       String mimeType,
+                                       VersioningState versioningState,
+                                       String objectType,
+                                       Map<String, Object> properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CREATE_DOCUMENT_BY_ID);
+            try {
+                return returned(invocation, facade.createDocumentById(folderId, filename, content, mimeType,
+                        versioningState, objectType, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CREATE_DOCUMENT_BY_ID, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId createDocumentByIdFromContent(String folderId,
+                                                  String filename,
+                                                  Object content,
+                                                  String mimeType,
+                                                  VersioningState versioningState,
+                                                  String objectType,
+                                                  Map<String, Object> properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CREATE_DOCUMENT_BY_ID_FROM_CONTENT);
+            try {
+                return returned(invocation, facade.createDocumentByIdFromContent(folderId, filename, content, mimeType,
+                        versioningState, objectType, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CREATE_DOCUMENT_BY_ID_FROM_CONTENT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectType getTypeDefinition(String typeId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_TYPE_DEFINITION);
+            try {
+                return returned(invocation, facade.getTypeDefinition(typeId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_TYPE_DEFINITION, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ItemIterable<Document> getCheckoutDocs(String filter, String orderBy) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_CHECKOUT_DOCS);
+            try {
+                return returned(invocation, facade.getCheckoutDocs(filter, orderBy));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_CHECKOUT_DOCS, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ItemIterable<QueryResult> query(String statement, Boolean searchAllVersions, String filter, String orderBy) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.QUERY);
+            try {
+                return returned(invocation, facade.query(statement, searchAllVersions, filter, orderBy));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.QUERY, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public List<Folder> getParentFolders(CmisObject cmisObject, String objectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_PARENT_FOLDERS);
+            try {
+                return returned(invocation, facade.getParentFolders(cmisObject, objectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_PARENT_FOLDERS, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
 
-                if (cause instanceof CmisConnectionException) {
-                    throw new CMISConnectorConnectionException(e.getCause());
-                } else if (cause instanceof CMISConnectorConnectionException ||
-                        cause instanceof RuntimeException) {
-                    throw e.getCause();
-                } else {
-                    throw new CMISConnectorException(cause);
+    @Override
+    public Object folder(Folder folder,
+                         String folderId,
+                         NavigationOptions get,
+                         Integer depth,
+                         String filter,
+                         String orderBy) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.FOLDER);
+            try {
+                return returned(invocation, facade.folder(folder, folderId, get, depth, filter, orderBy));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.FOLDER, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ContentStream getContentStream(CmisObject cmisObject, String objectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_CONTENT_STREAM);
+            try {
+                return returned(invocation, facade.getContentStream(cmisObject, objectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_CONTENT_STREAM, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public File downloadContent(CmisObject cmisObject,
+                                String objectId,
+                                String targetPath,
+                                int ranges,
+                                String checksumAlgorithm,
+                                String checksum) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.DOWNLOAD_CONTENT);
+            try {
+                return returned(invocation, facade.downloadContent(cmisObject, objectId, targetPath, ranges,
+                        checksumAlgorithm, checksum));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.DOWNLOAD_CONTENT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public FileableCmisObject moveObject(FileableCmisObject cmisObject,
+                                         String objectId,
+                                         String sourceFolderId,
+                                         String targetFolderId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.MOVE_OBJECT);
+            try {
+                return returned(invocation, facade.moveObject(cmisObject, objectId, sourceFolderId, targetFolderId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.MOVE_OBJECT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public CmisObject updateObjectProperties(CmisObject cmisObject, String objectId, Map<String, Object> properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.UPDATE_OBJECT_PROPERTIES);
+            try {
+                return returned(invocation, facade.updateObjectProperties(cmisObject, objectId, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.UPDATE_OBJECT_PROPERTIES, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public void delete(CmisObject cmisObject, String objectId, boolean allVersions) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.DELETE);
+            try {
+                facade.delete(cmisObject, objectId, allVersions);
+                returned(invocation, null);
+                return;
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.DELETE, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public List<String> deleteTree(CmisObject folder,
+                                   String folderId,
+                                   boolean allversions,
+                                   UnfileObject unfile,
+                                   boolean continueOnFailure) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.DELETE_TREE);
+            try {
+                return returned(invocation,
+                        facade.deleteTree(folder, folderId, allversions, unfile, continueOnFailure));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.DELETE_TREE, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public List<Relationship> getObjectRelationships(CmisObject cmisObject, String objectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_OBJECT_RELATIONSHIPS);
+            try {
+                return returned(invocation, facade.getObjectRelationships(cmisObject, objectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_OBJECT_RELATIONSHIPS, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public Acl getAcl(CmisObject cmisObject, String objectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_ACL);
+            try {
+                return returned(invocation, facade.getAcl(cmisObject, objectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_ACL, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public Acl applyAcl(CmisObject cmisObject,
+                        String objectId,
+                        List<Ace> addAces,
+                        List<Ace> removeAces,
+                        AclPropagation aclPropagation) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.APPLY_ACL);
+            try {
+                return returned(invocation, facade.applyAcl(cmisObject, objectId, addAces, removeAces, aclPropagation));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.APPLY_ACL, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public List<Document> getAllVersions(CmisObject document, String documentId, String filter, String orderBy) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_ALL_VERSIONS);
+            try {
+                return returned(invocation, facade.getAllVersions(document, documentId, filter, orderBy));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_ALL_VERSIONS, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId checkOut(CmisObject document, String documentId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CHECK_OUT);
+            try {
+                return returned(invocation, facade.checkOut(document, documentId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CHECK_OUT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public void cancelCheckOut(CmisObject document, String documentId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CANCEL_CHECK_OUT);
+            try {
+                facade.cancelCheckOut(document, documentId);
+                returned(invocation, null);
+                return;
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CANCEL_CHECK_OUT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId checkIn(CmisObject document,
+                            String documentId,
+                            Object content,
+                            String filename,
+                            String mimeType,
+                            boolean major,
+                            String checkinComment,
+                            Map<String, Object> properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CHECK_IN);
+            try {
+                return returned(invocation, facade.checkIn(document, documentId, content, filename, mimeType, major,
+                        checkinComment, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CHECK_IN, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public List<Policy> getAppliedPolicies(CmisObject cmisObject, String objectId) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.GET_APPLIED_POLICIES);
+            try {
+                return returned(invocation, facade.getAppliedPolicies(cmisObject, objectId));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.GET_APPLIED_POLICIES, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public void applyPolicy(CmisObject cmisObject, String objectId, List<ObjectId> policyIds) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.APPLY_POLICY);
+            try {
+                facade.applyPolicy(cmisObject, objectId, policyIds);
+                returned(invocation, null);
+                return;
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.APPLY_POLICY, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public void applyAspect(String objectId, String aspectName, Map<String, Object> properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.APPLY_ASPECT);
+            try {
+                facade.applyAspect(objectId, aspectName, properties);
+                returned(invocation, null);
+                return;
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.APPLY_ASPECT, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public ObjectId createRelationship(String parentObjectId, String childObjectId, String relationshipType) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.CREATE_RELATIONSHIP);
+            try {
+                return returned(invocation, facade.createRelationship(parentObjectId, childObjectId, relationshipType));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.CREATE_RELATIONSHIP, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public Object detach(Object source, String properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.DETACH);
+            try {
+                return returned(invocation, facade.detach(source, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.DETACH, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public OutputHandler toJson(Object source, JsonFormat format, String properties) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.TO_JSON);
+            try {
+                return returned(invocation, facade.toJson(source, format, properties));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.TO_JSON, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    @Override
+    public File exportQuery(String statement, Boolean searchAllVersions, String orderBy, String targetPath,
+                            ExportFormat format, String columns, int pageSize) {
+        for (int attempt = 0; ; attempt++) {
+            Invocation invocation = begin(FacadeOperation.EXPORT_QUERY);
+            try {
+                return returned(invocation, facade.exportQuery(statement, searchAllVersions, orderBy, targetPath,
+                        format, columns, pageSize));
+            } catch (RuntimeException e) {
+                retry(FacadeOperation.EXPORT_QUERY, invocation, e, attempt);
+            } finally {
+                end(invocation);
+            }
+        }
+    }
+
+    /**
+     * Starts an attempt of the given operation.
+     *
+     * @return the state of the attempt or null when neither metrics nor a concurrency limit apply
+     * @throws org.mule.module.cmis.exception.CMISConnectorCircuitOpenException if the circuit breaker is open
+     * @throws org.mule.module.cmis.exception.CMISConnectorQueueTimeoutException if no concurrency slot was available
+     */
+    private Invocation begin(FacadeOperation operation) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Invoked method {}", operation.getMethodName());
+        }
+        boolean probe = circuitBreaker != null && !operation.isLocal() &&
+                circuitBreaker.acquire(operation.getMethodName());
+        if (metrics == null && concurrencyLimiter == null && circuitBreaker == null) {
+            return null;
+        }
+        ConcurrencyLimiter limiter = operation.isLocal() ? null : concurrencyLimiter;
+        long start = limiter != null ? limiter.acquire(operation) : System.nanoTime();
+        return new Invocation(operation, metrics != null ? metrics.operation(operation.getMethodName()) : null,
+                limiter, start, probe);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T returned(Invocation invocation, T ret) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Returned value {}", ret);
+        }
+        // Invocations are always tracked when there is a circuit breaker
+        if (circuitBreaker != null && !invocation.operation.isLocal()) {
+            circuitBreaker.onSuccess(invocation.probe);
+        }
+        if (invocation == null) {
+            return ret;
+        }
+
+        invocation.finish(null);
+        if (invocation.metrics != null) {
+            if (ret instanceof ContentStream) {
+                return (T) invocation.metrics.meterDownload((ContentStream) ret);
+            } else if (ret instanceof File) {
+                invocation.metrics.addBytesDownloaded(((File) ret).length());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Handles the failure of an attempt: returns after the backoff delay when the operation should be retried,
+     * otherwise throws the translated failure.
+     */
+    private void retry(FacadeOperation operation, Invocation invocation, RuntimeException e, int attempt) {
+        if (invocation != null) {
+            invocation.finish(e);
+        }
+        if (circuitBreaker != null && !operation.isLocal()) {
+            // Refused requests prove that the repository is up
+            if (RetryPolicy.isTransient(e)) {
+                circuitBreaker.onFailure(invocation.probe);
+            } else {
+                circuitBreaker.onSuccess(invocation.probe);
+            }
+        }
+
+        if (retryPolicy != null && retryPolicy.shouldRetry(operation, e, attempt) &&
+                (circuitBreaker == null || !circuitBreaker.isOpen())) {
+            long backoff = retryPolicy.backoff(attempt);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Method {} failed with {}, retrying in {} ms", operation.getMethodName(), e, backoff);
+            }
+            try {
+                Thread.sleep(backoff);
+                return;
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (logger.isWarnEnabled()) {
+            logger.warn("Method " + operation.getMethodName() + " threw " + e.getClass(), e);
+        }
+        if (e instanceof CmisConnectionException) {
+            throw new CMISConnectorConnectionException(e);
+        }
+        throw e;
+    }
+
+    private static void end(Invocation invocation) {
+        if (invocation != null) {
+            invocation.end();
+        }
+    }
+
+    /**
+     * Concurrency slot, metrics and HTTP round trips of a running attempt, bound to the current thread.
+     */
+    private static final class Invocation {
+        private final FacadeOperation operation;
+        private final OperationMetrics metrics;
+        private final OperationMetrics previousMetrics;
+        private final RoundTrips roundTrips;
+        private final RoundTrips previousRoundTrips;
+        private final ConcurrencyLimiter concurrencyLimiter;
+        private final long start;
+        private final boolean probe;
+        private boolean finished;
+
+        private Invocation(FacadeOperation operation, OperationMetrics metrics,
+                           ConcurrencyLimiter concurrencyLimiter, long start, boolean probe) {
+            this.operation = operation;
+            this.probe = probe;
+            this.metrics = metrics;
+            this.concurrencyLimiter = concurrencyLimiter;
+            this.start = start;
+            if (metrics != null) {
+                this.previousMetrics = OperationMetrics.enter(metrics);
+                this.roundTrips = new RoundTrips();
+                this.previousRoundTrips = RoundTrips.begin(roundTrips);
+            } else {
+                this.previousMetrics = null;
+                this.roundTrips = null;
+                this.previousRoundTrips = null;
+            }
+        }
+
+        /**
+         * Records the outcome of the attempt and frees its concurrency slot, before any retry delay.
+         *
+         * @param failure the exception thrown by the attempt or null if it succeeded
+         */
+        private void finish(RuntimeException failure) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.release(operation, start, failure != null && RetryPolicy.isTransient(failure));
+            }
+            if (metrics != null) {
+                metrics.record(System.nanoTime() - start, failure);
+            }
+        }
+
+        private void end() {
+            if (!finished) {
+                // Errors are neither recorded nor used to adjust the concurrency limit
+                finished = true;
+                if (concurrencyLimiter != null) {
+                    concurrencyLimiter.release(operation, start, false);
+                }
+            }
+            if (metrics != null) {
+                RoundTrips.end(previousRoundTrips);
+                metrics.record(roundTrips);
+                OperationMetrics.exit(previousMetrics);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Method {} sent {} HTTP request(s)", metrics.getOperation(), roundTrips.getRequests());
                 }
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -16,6 +16,8 @@ import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.data.Ace;
 import org.apache.chemistry.opencmis.commons.data.Acl;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryCapabilities;
 import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
 import org.apache.chemistry.opencmis.commons.enums.*;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
@@ -25,13 +27,17 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.cmis.exception.CMISConnectorConnectionException;
 
 import javax.validation.constraints.NotNull;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Implementation of {@link CMISFacade} that use Apache Chemistry Project.
@@ -39,9 +45,37 @@ import java.util.*;
 public class ChemistryCMISFacade implements CMISFacade {
     private static final Logger logger = Logger.getLogger(ChemistryCMISFacade.class);
 
-    private Session repositorySession;
+    private static final String[] WEBSERVICES_SERVICES = {
+            SessionParameter.WEBSERVICES_ACL_SERVICE,
+            SessionParameter.WEBSERVICES_DISCOVERY_SERVICE,
+            SessionParameter.WEBSERVICES_MULTIFILING_SERVICE,
+            SessionParameter.WEBSERVICES_NAVIGATION_SERVICE,
+            SessionParameter.WEBSERVICES_OBJECT_SERVICE,
+            SessionParameter.WEBSERVICES_POLICY_SERVICE,
+            SessionParameter.WEBSERVICES_RELATIONSHIP_SERVICE,
+            SessionParameter.WEBSERVICES_REPOSITORY_SERVICE,
+            SessionParameter.WEBSERVICES_VERSIONING_SERVICE
+    };
+
+    private volatile Session repositorySession;
+    private final Object sessionLock = new Object();
     private Map<String, String> connectionParameters;
     private String baseURL = null;
+    private DeduplicationMode deduplicationMode = DeduplicationMode.NONE;
+    private DeduplicationIndex deduplicationIndex;
+    private String deduplicationHashProperty;
+    private ContentCache contentCache;
+    private UploadSpooler uploadSpooler;
+    private final Map<OperationClass, String> readTimeouts = new EnumMap<OperationClass, String>(OperationClass.class);
+    private final Map<OperationClass, Session> classSessions = new EnumMap<OperationClass, Session>(OperationClass.class);
+    private Long operationTimeout;
+    private long repositoryCacheTtl = RepositoryDiscovery.DEFAULT_TTL;
+    private TypeDefinitionCache typeDefinitionCache;
+    private List<String> preloadTypes = Collections.emptyList();
+    private MissingPathCache missingPathCache;
+    private WsdlCache wsdlCache;
+    private SingleFlight<CmisObject> objectReads;
+    private final RepositoryCopier copier = new RepositoryCopier();
 
     public ChemistryCMISFacade(String username,
                                String password,
@@ -52,6 +86,23 @@ public class ChemistryCMISFacade implements CMISFacade {
                                String cxfPortProvider,
                                boolean useAlfrescoExtension,
                                boolean useCookies) {
+        this(username, password, baseURL, repositoryId, endpoint, connectionTimeout, cxfPortProvider,
+                useAlfrescoExtension, useCookies, false);
+    }
+
+    /**
+     * @param lazy whether a missing repository ID is resolved when the first session is created, rather than now
+     */
+    public ChemistryCMISFacade(String username,
+                               String password,
+                               String baseURL,
+                               String repositoryId,
+                               CMISConnectionType endpoint,
+                               String connectionTimeout,
+                               String cxfPortProvider,
+                               boolean useAlfrescoExtension,
+                               boolean useCookies,
+                               boolean lazy) {
         this.baseURL = baseURL.trim();
 
         if (!this.baseURL.endsWith("/")) {
@@ -60,7 +111,7 @@ public class ChemistryCMISFacade implements CMISFacade {
 
         this.connectionParameters =
                 paramMap(username, password, repositoryId, this.baseURL, endpoint,
-                        connectionTimeout, useAlfrescoExtension, cxfPortProvider, useCookies);
+                        connectionTimeout, useAlfrescoExtension, cxfPortProvider, useCookies, lazy);
     }
 
     public static ContentStream createContentStream(String filename,
@@ -90,6 +141,29 @@ public class ChemistryCMISFacade implements CMISFacade {
         return ret;
     }
 
+    /**
+     * Creates the content stream to upload. When the upload spooler is enabled, streams are uploaded
+     * from a repeatable copy that is kept until {@link #releaseContent(Object)} is called, so that
+     * the operation can be retried.
+     */
+    private ContentStream newContentStream(String filename, String mimeType, Object content) {
+        if (uploadSpooler != null && content instanceof InputStream) {
+            SpooledContent spooled = uploadSpooler.spool((InputStream) content, false);
+            return OperationMetrics.meterUpload(
+                    new ContentStreamImpl(filename, BigInteger.valueOf(spooled.getLength()), mimeType, spooled.openStream()));
+        }
+        return OperationMetrics.meterUpload(createContentStream(filename, mimeType, content));
+    }
+
+    /**
+     * Discards the repeatable copy of an uploaded content, if any.
+     */
+    private void releaseContent(Object content) {
+        if (uploadSpooler != null) {
+            uploadSpooler.release(content);
+        }
+    }
+
     /**
      * Validates that either a CmisObject or it's ID has been provided.
      */
@@ -125,6 +199,23 @@ public class ChemistryCMISFacade implements CMISFacade {
         return ctx;
     }
 
+    /**
+     * Creates a context that only retrieves the given properties, without ACLs, policies,
+     * relationships, renditions or allowable actions.
+     */
+    private static OperationContext createMinimalOperationContext(String... properties) {
+        OperationContext ctx = new OperationContextImpl();
+        ctx.setFilter(new HashSet<String>(Arrays.asList(properties)));
+        ctx.setIncludeAcls(false);
+        ctx.setIncludeAllowableActions(false);
+        ctx.setIncludePolicies(false);
+        ctx.setIncludeRelationships(IncludeRelationships.NONE);
+        ctx.setRenditionFilterString("cmis:none");
+        ctx.setIncludePathSegments(false);
+        ctx.setCacheEnabled(false);
+        return ctx;
+    }
+
     private static Map<String, String> paramMap(String username,
                                                 String password,
                                                 String repositoryId,
@@ -133,7 +224,8 @@ public class ChemistryCMISFacade implements CMISFacade {
                                                 String connectionTimeout,
                                                 boolean useAlfrescoExtension,
                                                 String cxfPortProvider,
-                                                boolean useCookies) {
+                                                boolean useCookies,
+                                                boolean lazy) {
 
         Map<String, String> parameters = new HashMap<String, String>();
 
@@ -141,6 +233,7 @@ public class ChemistryCMISFacade implements CMISFacade {
         parameters.put(SessionParameter.USER, username.trim());
         parameters.put(SessionParameter.PASSWORD, password.trim());
         parameters.put(SessionParameter.COOKIES, String.valueOf(useCookies));
+        parameters.put(SessionParameter.AUTHENTICATION_PROVIDER_CLASS, RoundTripAuthenticationProvider.class.getName());
 
         if (endpoint.equals(CMISConnectionType.SOAP)) {
             parameters.put(SessionParameter.BINDING_TYPE, BindingType.WEBSERVICES.value());
@@ -154,6 +247,11 @@ public class ChemistryCMISFacade implements CMISFacade {
             parameters.put(SessionParameter.WEBSERVICES_REPOSITORY_SERVICE, baseURL + "RepositoryService?wsdl");
             parameters.put(SessionParameter.WEBSERVICES_VERSIONING_SERVICE, baseURL + "VersioningService?wsdl");
             parameters.put(SessionParameter.WEBSERVICES_PORT_PROVIDER_CLASS, cxfPortProvider);
+        } else if (endpoint.equals(CMISConnectionType.BROWSER)) {
+            parameters.put(SessionParameter.BINDING_TYPE, BindingType.BROWSER.value());
+            parameters.put(SessionParameter.BROWSER_URL, StringUtils.removeEnd(baseURL, "/"));
+            // Properties are sent as plain id/value pairs, without their definitions
+            parameters.put(SessionParameter.BROWSER_SUCCINCT, "true");
         } else {
             parameters.put(SessionParameter.BINDING_TYPE, BindingType.ATOMPUB.value());
             parameters.put(SessionParameter.ATOMPUB_URL, baseURL);
@@ -169,7 +267,7 @@ public class ChemistryCMISFacade implements CMISFacade {
 
         if (StringUtils.isNotEmpty(repositoryId)) {
             parameters.put(SessionParameter.REPOSITORY_ID, repositoryId.trim());
-        } else {
+        } else if (!lazy) {
             // No repository ID was specified. Go try an get the first ID in the repository list from the server.
             String repoID = getRepositoryID(parameters, baseURL);
             if (StringUtils.isNotEmpty(repoID)) {
@@ -188,11 +286,19 @@ public class ChemistryCMISFacade implements CMISFacade {
     }
 
     public static String getRepositoryID(Map<String, String> parameters, String baseURL) {
+        return getRepositoryID(parameters, baseURL, RepositoryDiscovery.DEFAULT_TTL);
+    }
+
+    /**
+     * @param repositoryCacheTtl milliseconds the repositories listed by the server may be served from the cache
+     */
+    public static String getRepositoryID(Map<String, String> parameters, String baseURL, long repositoryCacheTtl) {
         String repoID = null;
 
         try {
             logger.debug("Attempting to dynamically obtain the repository ID.");
-            List<Repository> repositoryList = SessionFactoryImpl.newInstance().getRepositories(parameters);
+            List<Repository> repositoryList = RepositoryDiscovery.getRepositories(
+                    SessionFactoryImpl.newInstance(), parameters, baseURL, repositoryCacheTtl);
 
             if (repositoryList.isEmpty()) {
                 logger.error(
@@ -218,7 +324,8 @@ public class ChemistryCMISFacade implements CMISFacade {
     }
 
     public List<Repository> repositories() {
-        return SessionFactoryImpl.newInstance().getRepositories(connectionParameters);
+        return RepositoryDiscovery.getRepositories(
+                SessionFactoryImpl.newInstance(), connectionParameters, baseURL, repositoryCacheTtl);
     }
 
     public RepositoryInfo repositoryInfo() {
@@ -237,7 +344,7 @@ public class ChemistryCMISFacade implements CMISFacade {
         String token = changeLogToken;
         ChangeEvents returnEvents = null;
 
-        Session session = this.getSession(this.connectionParameters);
+        Session session = this.getSession(OperationClass.QUERY);
         if (session != null) {
             List<ChangeEvent> changeEvents = new ArrayList<ChangeEvent>();
             long totalNumItems = 0;
@@ -247,6 +354,12 @@ public class ChemistryCMISFacade implements CMISFacade {
                 totalNumItems += events.getTotalNumItems();
 
                 changeEvents.addAll(events.getChangeEvents());
+                if (contentCache != null) {
+                    for (ChangeEvent event : events.getChangeEvents()) {
+                        contentCache.invalidate(event.getObjectId());
+                    }
+                }
+                pathsChanged(events.getChangeEvents());
                 if (events.getHasMoreItems()) {
                     String t = events.getLatestChangeLogToken();
                     if (t != null && !t.equals(token)) {
@@ -263,36 +376,96 @@ public class ChemistryCMISFacade implements CMISFacade {
     }
 
     public CmisObject getObjectById(String objectId) {
+        return getObjectById(this.getSession(this.connectionParameters), objectId);
+    }
+
+    private CmisObject getObjectById(final Session session, final String objectId) {
         CmisObject returnObj = null;
 
-        Session session = this.getSession(this.connectionParameters);
         if (session != null) {
+            if (objectReads != null) {
+                return objectReads.execute(readKey("id", objectId, null, null), new Callable<CmisObject>() {
+                    @Override
+                    public CmisObject call() {
+                        return session.getObject(session.createObjectId(objectId), createOperationContext(null, null));
+                    }
+                });
+            }
             returnObj = session.getObject(session.createObjectId(objectId), createOperationContext(null, null));
         }
 
         return returnObj;
     }
 
-    public CmisObject getObjectByPath(String path) {
+    /**
+     * Key of a coalesced read: the kind of lookup, its argument and the filter and order of the operation
+     * context it is made with, as reads that return other properties cannot be shared.
+     */
+    private static String readKey(String lookup, String argument, String filter, String orderBy) {
+        return lookup + "\n" + argument + "\n" + StringUtils.defaultString(filter) + "\n" +
+                StringUtils.defaultString(orderBy);
+    }
+
+    public CmisObject getObjectByPath(final String path) {
         CmisObject returnObj = null;
+        if (missingPathCache != null && missingPathCache.isMissing(path)) {
+            return null;
+        }
         try {
-            Session session = this.getSession(this.connectionParameters);
-            if (session != null) {
+            final Session session = this.getSession(this.connectionParameters);
+            if (session != null && objectReads != null) {
+                returnObj = objectReads.execute(readKey("path", path, null, null), new Callable<CmisObject>() {
+                    @Override
+                    public CmisObject call() {
+                        return session.getObjectByPath(path, createOperationContext(null, null));
+                    }
+                });
+            } else if (session != null) {
                 returnObj = session.getObjectByPath(path, createOperationContext(null, null));
             }
         } catch (CmisObjectNotFoundException e) {
-            logger.warn(e);
+            // Probing for objects that do not exist yet is common, not worth a warning
+            logger.debug("There is no object at \"" + path + "\".", e);
+            if (missingPathCache != null) {
+                missingPathCache.putMissing(path);
+            }
         }
         return returnObj;
     }
 
+    public boolean exists(String path) {
+        return getObjectIdByPath(path) != null;
+    }
+
+    public String getObjectIdByPath(String path) {
+        Validate.notEmpty(path, "path is empty");
+        if (missingPathCache != null && missingPathCache.isMissing(path)) {
+            return null;
+        }
+
+        Session session = this.getSession(this.connectionParameters);
+        try {
+            // Straight to the binding: only the id and change token are transferred and no object is built
+            ObjectData data = session.getBinding().getObjectService().getObjectByPath(
+                    session.getRepositoryInfo().getId(), path, PropertyIds.OBJECT_ID + "," + PropertyIds.CHANGE_TOKEN,
+                    false, IncludeRelationships.NONE, "cmis:none", false, false, null);
+            return data.getId();
+        } catch (CmisObjectNotFoundException e) {
+            logger.debug("There is no object at \"" + path + "\".");
+            if (missingPathCache != null) {
+                missingPathCache.putMissing(path);
+            }
+            return null;
+        }
+    }
+
     public ObjectId createDocumentById(@NotNull(message = "No folderId was specified in the request.") String folderId,
                                        @NotNull(message = "No filename was specified in the request.") String filename,
                                        @NotNull(message = "No document content was specified in the payload.") Object content,
                                        @NotNull(message = "No file mime type was specified in the request.") String mimeType,
                                        org.mule.module.cmis.VersioningState versioningState,
                                        @NotNull(message = "No object type was specified in the request.") String objectType,
-                                       Map<String, String> properties) {
+                                       Map<String, Object> properties) {
         ObjectId returnId = null;
         Session session = this.getSession(this.connectionParameters);
         if (session != null) {
@@ -320,7 +493,7 @@ public class ChemistryCMISFacade implements CMISFacade {
                                                   @NotNull(message = "No file mime type was specified in the request.") String mimeType,
                                                   org.mule.module.cmis.VersioningState versioningState,
                                                   @NotNull(message = "No object type was specified in the request.") String objectType,
-                                                  Map<String, String> properties) {
+                                                  Map<String, Object> properties) {
         ObjectId returnId = null;
         Session session = this.getSession(this.connectionParameters);
         if (session != null) {
@@ -346,7 +519,7 @@ public class ChemistryCMISFacade implements CMISFacade {
                                          @NotNull(message = "No file mime type was specified in the request.") String mimeType,
                                          org.mule.module.cmis.VersioningState versioningState,
                                          @NotNull(message = "No object type was specified in the request.") String objectType,
-                                         Map<String, String> properties,
+                                         Map<String, Object> properties,
                                          boolean force) {
         ObjectId returnId = null;
         Session session = this.getSession(this.connectionParameters);
@@ -377,7 +550,7 @@ public class ChemistryCMISFacade implements CMISFacade {
                                                     @NotNull(message = "No file mime type was specified in the request.") String mimeType,
                                                     org.mule.module.cmis.VersioningState versioningState,
                                                     @NotNull(message = "No object type was specified in the request.") String objectType,
-                                                    Map<String, String> properties,
+                                                    Map<String, Object> properties,
                                                     boolean force) {
         ObjectId returnId = null;
         Session session = this.getSession(this.connectionParameters);
@@ -398,6 +571,94 @@ public class ChemistryCMISFacade implements CMISFacade {
         return returnId;
     }
 
+    public ObjectId upsertDocumentByPath(String folderPath,
+                                         String filename,
+                                         Object content,
+                                         String mimeType,
+                                         org.mule.module.cmis.VersioningState versioningState,
+                                         String objectType,
+                                         Map<String, Object> properties,
+                                         boolean major,
+                                         String checkinComment,
+                                         boolean force) {
+        Validate.notEmpty(folderPath, "folderPath is empty");
+        Validate.notEmpty(filename, "filename is empty");
+        Validate.notNull(content, "content is null");
+        Validate.notEmpty(mimeType, "did you mean application/octet-stream?");
+
+        Session session = this.getSession(OperationClass.CONTENT);
+        String path = StringUtils.removeEnd(folderPath, "/") + "/" + filename;
+        OperationContext context = createMinimalOperationContext(PropertyIds.OBJECT_ID,
+                PropertyIds.BASE_TYPE_ID, PropertyIds.OBJECT_TYPE_ID, PropertyIds.CHANGE_TOKEN);
+        CmisObject existing = null;
+        if (missingPathCache == null || !missingPathCache.isMissing(path)) {
+            try {
+                existing = session.getObjectByPath(path, context);
+            } catch (CmisObjectNotFoundException e) {
+                logger.debug("There is no document at \"" + path + "\".");
+            }
+        }
+        if (existing == null) {
+            try {
+                logger.debug("Creating the document at \"" + path + "\".");
+                return createDocument(force ? getOrCreateFolderByPath(folderPath) : session.getObjectByPath(folderPath),
+                        filename, content, mimeType, versioningState, objectType, properties);
+            } catch (CmisContentAlreadyExistsException e) {
+                // Created by another client since it was looked up or cached as missing
+                logger.debug("The document at \"" + path + "\" was created meanwhile, updating it.");
+                if (missingPathCache != null) {
+                    missingPathCache.invalidate(path);
+                }
+                existing = session.getObjectByPath(path, context);
+            }
+        }
+        if (!(existing instanceof Document)) {
+            throw new IllegalArgumentException("The object at \"" + path + "\" is not a document.");
+        }
+        ObjectId returnId = updateDocumentContent(session, (Document) existing, path, filename, content, mimeType,
+                properties, major, checkinComment);
+        // Only once uploaded, a retry of a failed upsert needs the copy of the content
+        releaseContent(content);
+        return returnId;
+    }
+
+    /**
+     * Writes the content of an existing document as a single new version. The content is set in place only
+     * when the repository allows it at any time and the new version needs neither properties, a major version
+     * nor a comment, which setting the content cannot carry. Otherwise the document is checked out and checked in.
+     */
+    private ObjectId updateDocumentContent(Session session, Document document, String path, String filename,
+                                           Object content, String mimeType, Map<String, Object> properties,
+                                           boolean major, String checkinComment) {
+        Map<String, Object> converted = translateInboundProperties(
+                propertyConverter(session, document.getType()), properties);
+        RepositoryCapabilities capabilities = session.getRepositoryInfo().getCapabilities();
+        if (capabilities != null &&
+                capabilities.getContentStreamUpdatesCapability() == CapabilityContentStreamUpdates.ANYTIME &&
+                (converted == null || converted.isEmpty()) && !major && StringUtils.isBlank(checkinComment)) {
+            logger.debug("Setting the content of the document at \"" + path + "\".");
+            ObjectId returnId = document.setContentStream(newContentStream(filename, mimeType, content), true, false);
+            return returnId != null ? returnId : session.createObjectId(document.getId());
+        }
+
+        logger.debug("Checking out and checking in the document at \"" + path + "\".");
+        ObjectId pwcId = document.checkOut();
+        Document pwc = (Document) session.getObject(pwcId, createMinimalOperationContext(
+                PropertyIds.OBJECT_ID, PropertyIds.BASE_TYPE_ID, PropertyIds.OBJECT_TYPE_ID));
+        try {
+            return pwc.checkIn(major, coalesceProperties(converted),
+                    newContentStream(filename, mimeType, content), StringUtils.defaultString(checkinComment));
+        } catch (RuntimeException e) {
+            // Do not leave the document checked out
+            try {
+                pwc.cancelCheckOut();
+            } catch (RuntimeException cancelEx) {
+                logger.warn("Unable to cancel the check out of the document at \"" + path + "\".", cancelEx);
+            }
+            throw e;
+        }
+    }
+
     public CmisObject getOrCreateFolderByPath(@NotNull(message = "No folderPath was specified in the request.") String folderPath) {
         CmisObject returnObj = null;
         Session session = this.getSession(this.connectionParameters);
@@ -407,7 +668,11 @@ public class ChemistryCMISFacade implements CMISFacade {
                 returnObj = session.getObjectByPath(folderPath);
             } catch (CmisObjectNotFoundException e) {
                 logger.debug("CMIS Object Not Found, Creating a Folder Structure: ", e);
-                return createFolderStructure(folderPath);
+                CmisObject folder = createFolderStructure(folderPath, Deadline.after(operationTimeout));
+                if (missingPathCache != null) {
+                    missingPathCache.invalidate(folderPath);
+                }
+                return folder;
             }
         }
 
@@ -421,8 +686,9 @@ public class ChemistryCMISFacade implements CMISFacade {
      * and catch {@link CmisContentAlreadyExistsException}, but currently that exception
      * is not being thrown - it seems like a server's bug
      */
-    private CmisObject createFolderStructure(String folderPath) {
+    private CmisObject createFolderStructure(String folderPath, Deadline deadline) {
         String[] folderNames = StringUtils.split(folderPath, "/");
+        deadline.check("looking up the root folder");
         String currentObjectId = getObjectByPath("/").getId();
         String currentPath = "/";
         for (String folder : folderNames) {
@@ -431,15 +697,25 @@ public class ChemistryCMISFacade implements CMISFacade {
             CmisObject currentObject = null;
 
             try {
+                deadline.check("looking up " + currentPath);
                 currentObject = getObjectByPath(currentPath);
             } catch (CmisObjectNotFoundException ex) {
                 logger.debug("Path not found: " + currentPath, ex);
             }
 
-            currentObjectId = currentObject != null
-                    ? currentObject.getId()
-                    : createFolder(folder, currentObjectId).getId();
+            if (currentObject == null) {
+                deadline.check("creating " + currentPath);
+            }
+            if (currentObject != null) {
+                currentObjectId = currentObject.getId();
+            } else {
+                currentObjectId = createFolderIn(folder, currentObjectId).getId();
+                if (missingPathCache != null) {
+                    missingPathCache.invalidate(currentPath);
+                }
+            }
         }
+        deadline.check("fetching " + currentPath);
         return getObjectById(currentObjectId);
     }
 
@@ -452,37 +728,217 @@ public class ChemistryCMISFacade implements CMISFacade {
                                       @NotNull(message = "No file mime type was specified in the request.") String mimeType,
                                       @NotNull(message = "No versioning state was specified in the request.") org.mule.module.cmis.VersioningState versioningState,
                                       String objectType,
-                                      Map<String, String> extraProperties) {
+                                      Map<String, Object> extraProperties) {
         ObjectId returnId = null;
 
-        Session session = this.getSession(this.connectionParameters);
+        Session session = this.getSession(OperationClass.CONTENT);
 
         if (session != null) {
-            VersioningState vs;
-            try {
-                vs = VersioningState.valueOf(versioningState.name());
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException(String.format(
-                        "Illegal value for versioningState. Given `%s' could be: %s",
-                        versioningState, Arrays.toString(VersioningState.values())), e);
-            }
+            VersioningState vs = toVersioningState(versioningState);
 
             Map<String, Object> properties = new HashMap<String, Object>();
             properties.put(PropertyIds.OBJECT_TYPE_ID, objectType);
             properties.put(PropertyIds.NAME, filename);
             if (extraProperties != null) {
-                properties.putAll(this.translateInboundProperties(extraProperties));
+                properties.putAll(this.translateInboundProperties(propertyConverter(session, objectType), extraProperties));
             }
-            returnId = session.createDocument(properties,
-                    session.createObjectId(folder.getId()),
-                    createContentStream(filename, mimeType, content), vs);
+            if (content instanceof Document && ((Document) content).getType().getId().equals(objectType)) {
+                // The type of a copy cannot be changed, so only same-type copies stay in the repository. Copies
+                // get the properties of their source, whether or not the binding copies server side
+                properties.remove(PropertyIds.OBJECT_TYPE_ID);
+                returnId = copier.copy(session, (Document) content, properties,
+                        session.createObjectId(folder.getId()), vs);
+                pathCreated(folder, filename);
+            } else if (deduplicationMode != DeduplicationMode.NONE && !(content instanceof Document)) {
+                // Invalidates the paths it creates itself, skipped duplicates create none
+                returnId = createDeduplicatedDocument(session, folder, filename, content, mimeType, vs, properties);
+            } else {
+                returnId = session.createDocument(properties,
+                        session.createObjectId(folder.getId()),
+                        newContentStream(filename, mimeType, content), vs);
+                pathCreated(folder, filename);
+            }
+            releaseContent(content);
         }
 
         return returnId;
         // End createDocument
     }
 
+    private static VersioningState toVersioningState(org.mule.module.cmis.VersioningState versioningState) {
+        try {
+            return VersioningState.valueOf(versioningState.name());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Illegal value for versioningState. Given `%s' could be: %s",
+                    versioningState, Arrays.toString(VersioningState.values())), e);
+        }
+    }
+
+    /**
+     * Creates a document unless a document with the same content hash already exists, in which case
+     * the upload is skipped and, in LINK mode, the existing document is filed in the target folder.
+     */
+    private ObjectId createDeduplicatedDocument(Session session,
+                                                CmisObject folder,
+                                                String filename,
+                                                Object content,
+                                                String mimeType,
+                                                VersioningState versioningState,
+                                                Map<String, Object> properties) {
+        DigestedContent digested = DigestedContent.digest(content, uploadSpooler);
+        try {
+            ObjectId existingId = findDuplicate(session, digested.getHash(), (String) properties.get(PropertyIds.OBJECT_TYPE_ID));
+            if (existingId != null) {
+                long bytesSaved = deduplicationIndex.recordDuplicate(digested.getLength());
+                logger.info("The content of \"" + filename + "\" is already stored in the document with ID \"" +
+                        existingId.getId() + "\", the upload was skipped. " + bytesSaved + " bytes saved so far.");
+                if (deduplicationMode == DeduplicationMode.LINK) {
+                    linkDuplicate(session, existingId, folder);
+                }
+                return existingId;
+            }
+
+            if (StringUtils.isNotBlank(deduplicationHashProperty)) {
+                properties.put(deduplicationHashProperty, digested.getHash());
+            }
+            ObjectId returnId = session.createDocument(properties,
+                    session.createObjectId(folder.getId()),
+                    OperationMetrics.meterUpload(digested.newContentStream(filename, mimeType)), versioningState);
+            deduplicationIndex.put(digested.getHash(), returnId.getId());
+            pathCreated(folder, filename);
+            return returnId;
+        } finally {
+            digested.dispose();
+        }
+    }
+
+    /**
+     * Looks for a document of the given type or one of its subtypes holding content with the given hash,
+     * first in the local index and then, if a hash property is configured, in the repository.
+     */
+    private ObjectId findDuplicate(Session session, String hash, String objectType) {
+        String objectId = deduplicationIndex.get(hash);
+        if (objectId != null) {
+            try {
+                CmisObject indexed = session.getObject(session.createObjectId(objectId),
+                        createMinimalOperationContext(PropertyIds.OBJECT_ID, PropertyIds.OBJECT_TYPE_ID));
+                // Like the query below, only documents of the requested type or its subtypes are duplicates
+                if (isOfType(indexed.getType(), objectType)) {
+                    return session.createObjectId(objectId);
+                }
+            } catch (CmisObjectNotFoundException e) {
+                logger.debug("The document with ID \"" + objectId + "\" no longer exists, removing it from the deduplication index.");
+                deduplicationIndex.remove(hash);
+            }
+        }
+
+        if (StringUtils.isNotBlank(deduplicationHashProperty)) {
+            String queryName = typeDefinition(session, objectType).getQueryName();
+            String statement = "SELECT " + PropertyIds.OBJECT_ID + " FROM " + queryName +
+                    " WHERE " + deduplicationHashProperty + " = '" + hash + "'";
+            for (QueryResult result : session.query(statement, false, createMinimalOperationContext(PropertyIds.OBJECT_ID)).getPage(1)) {
+                String id = result.getPropertyValueById(PropertyIds.OBJECT_ID);
+                deduplicationIndex.put(hash, id);
+                return session.createObjectId(id);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isOfType(ObjectType type, String typeId) {
+        for (ObjectType current = type; current != null; current = current.getParentType()) {
+            if (current.getId().equals(typeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void linkDuplicate(Session session, ObjectId documentId, CmisObject folder) {
+        RepositoryCapabilities capabilities = session.getRepositoryInfo().getCapabilities();
+        if (capabilities == null || !Boolean.TRUE.equals(capabilities.isMultifilingSupported())) {
+            logger.debug("The repository does not support multi-filing, the duplicate document will not be linked.");
+            return;
+        }
+
+        CmisObject document = session.getObject(documentId);
+        if (document instanceof FileableCmisObject) {
+            FileableCmisObject fileable = (FileableCmisObject) document;
+            for (Folder parent : fileable.getParents()) {
+                if (parent.getId().equals(folder.getId())) {
+                    return;
+                }
+            }
+            fileable.addToFolder(folder, true);
+            pathCreated(folder, fileable.getName());
+        }
+    }
+
+    public ObjectId copyDocument(CmisObject document, String documentId, String targetFolderId, String filename,
+                                 org.mule.module.cmis.VersioningState versioningState, Map<String, Object> properties) {
+        validateObjectOrId(document, documentId);
+        validateRedundantIdentifier(document, documentId);
+        Validate.notEmpty(targetFolderId, "targetFolderId is empty");
+
+        CmisObject target = getCmisObject(document, documentId, OperationClass.CONTENT);
+        if (target instanceof Document) {
+            Session session = this.getSession(OperationClass.CONTENT);
+            Map<String, Object> copyProperties = new HashMap<String, Object>();
+            if (StringUtils.isNotBlank(filename)) {
+                copyProperties.put(PropertyIds.NAME, filename);
+            }
+            if (properties != null) {
+                copyProperties.putAll(this.translateInboundProperties(
+                        propertyConverter(session, target.getType()), properties));
+            }
+            try {
+                return copier.copy(session, (Document) target, copyProperties, session.createObjectId(targetFolderId),
+                        versioningState != null ? toVersioningState(versioningState) : null);
+            } finally {
+                // After the copy, so that lookups made meanwhile cannot cache its paths as missing again
+                pathsChanged();
+            }
+        } else {
+            logger.error("Unable to obtain the document reference, so the document could not be copied.");
+        }
+        return null;
+    }
+
+    public ObjectId copyFolderTree(CmisObject folder, String folderId, String targetFolderId, int threads) {
+        validateObjectOrId(folder, folderId);
+        validateRedundantIdentifier(folder, folderId);
+        Validate.notEmpty(targetFolderId, "targetFolderId is empty");
+        Validate.isTrue(threads > 0, "threads must be greater than zero");
+
+        CmisObject target = getCmisObject(folder, folderId, OperationClass.TREE);
+        if (target instanceof Folder) {
+            Session session = this.getSession(OperationClass.TREE);
+            try {
+                return copier.copyTree(session, (Folder) target, session.createObjectId(targetFolderId), threads);
+            } finally {
+                // Also after a failed copy, which may have created part of the tree
+                pathsChanged();
+            }
+        } else {
+            logger.error("Unable to obtain the folder reference, so the folder tree could not be copied.");
+        }
+        return null;
+    }
+
     public ObjectId createFolder(String folderName, String parentObjectId) {
+        try {
+            return createFolderIn(folderName, parentObjectId);
+        } finally {
+            // After the folder is created, so that lookups made meanwhile cannot cache its path as missing again
+            pathsChanged();
+        }
+    }
+
+    /**
+     * Creates a folder without invalidating the missing path cache, whose path callers invalidate.
+     */
+    private ObjectId createFolderIn(String folderName, String parentObjectId) {
         ObjectId returnId = null;
 
         Session session = this.getSession(this.connectionParameters);
@@ -523,18 +979,25 @@ public class ChemistryCMISFacade implements CMISFacade {
 
         if (session != null) {
             Validate.notEmpty(typeId, "typeId is empty");
-            returnTypeDef = session.getTypeDefinition(typeId);
+            returnTypeDef = typeDefinition(session, typeId);
         }
 
         return returnTypeDef;
         // End getTypeDefinition
     }
 
+    private ObjectType typeDefinition(Session session, String typeId) {
+        if (typeDefinitionCache != null) {
+            return typeDefinitionCache.get(session, typeId);
+        }
+        return session.getTypeDefinition(typeId);
+    }
+
     public ItemIterable<Document> getCheckoutDocs(String filter,
                                                   String orderBy) {
         ItemIterable<Document> docList = null;
 
-        Session session = this.getSession(this.connectionParameters);
+        Session session = this.getSession(OperationClass.QUERY);
 
         if (session != null) {
             docList = session.getCheckedOutDocs(createOperationContext(filter, orderBy));
@@ -550,7 +1013,7 @@ public class ChemistryCMISFacade implements CMISFacade {
                                            String orderBy) {
         ItemIterable<QueryResult> resultList = null;
 
-        Session session = this.getSession(this.connectionParameters);
+        Session session = this.getSession(OperationClass.QUERY);
 
         if (session != null) {
             Validate.notEmpty(statement, "statement is empty");
@@ -558,12 +1021,20 @@ public class ChemistryCMISFacade implements CMISFacade {
             logger.debug("Preparing to execute the CMIS query \"" + statement + "\".");
             OperationContext ctx = createOperationContext(filter, orderBy);
             resultList = session.query(statement, searchAllVersions, ctx);
-            logger.debug("The result list contains " + resultList.getTotalNumItems() + " items.");
 
-            for (QueryResult currentResult : resultList) {
-                logger.debug(
-                        "Object with ID \"" + currentResult.getPropertyByQueryName("cmis:objectId") +
-                                "\" is in the result set.");
+            // Results are read lazily, the first page is read here so that invalid statements and unreachable
+            // repositories fail the operation rather than the iteration of the results
+            Iterator<QueryResult> results = resultList.iterator();
+            results.hasNext();
+
+            // Listing the results reads every page, so it is only done when it is logged
+            if (logger.isDebugEnabled()) {
+                logger.debug("The result list contains " + resultList.getTotalNumItems() + " items.");
+                while (results.hasNext()) {
+                    logger.debug(
+                            "Object with ID \"" + results.next().getPropertyByQueryName("cmis:objectId") +
+                                    "\" is in the result set.");
+                }
             }
         }
 
@@ -591,7 +1062,7 @@ public class ChemistryCMISFacade implements CMISFacade {
         validateObjectOrId(folder, folderId);
         validateRedundantIdentifier(folder, folderId);
 
-        Folder target = getCmisObject(folder, folderId, Folder.class);
+        Folder target = getCmisObject(folder, folderId, Folder.class, OperationClass.TREE);
         Object ret = null;
 
         if (target != null) {
@@ -620,7 +1091,11 @@ public class ChemistryCMISFacade implements CMISFacade {
         validateObjectOrId(cmisObject, objectId);
         validateRedundantIdentifier(cmisObject, objectId);
 
-        CmisObject target = getCmisObject(cmisObject, objectId);
+        if (contentCache != null) {
+            return getCachedContentStream(cmisObject != null ? cmisObject.getId() : objectId);
+        }
+
+        CmisObject target = getCmisObject(cmisObject, objectId, OperationClass.CONTENT);
 
         if (target != null && target instanceof Document) {
             return ((Document) target).getContentStream();
@@ -630,6 +1105,59 @@ public class ChemistryCMISFacade implements CMISFacade {
         return null;
     }
 
+    /**
+     * Serves the content from the content cache when the cached copy matches the current change token
+     * of the document, which is obtained through a metadata request that only retrieves a few properties.
+     */
+    private ContentStream getCachedContentStream(String objectId) {
+        Session session = this.getSession(OperationClass.CONTENT);
+        CmisObject target = session.getObject(session.createObjectId(objectId),
+                createMinimalOperationContext(PropertyIds.OBJECT_ID, PropertyIds.CHANGE_TOKEN,
+                        PropertyIds.LAST_MODIFICATION_DATE, PropertyIds.CONTENT_STREAM_LENGTH,
+                        PropertyIds.CONTENT_STREAM_MIME_TYPE, PropertyIds.CONTENT_STREAM_FILE_NAME));
+
+        if (!(target instanceof Document)) {
+            logger.error("Unable to obtain the object reference in order to obtain the content of the object.");
+            return null;
+        }
+
+        Document document = (Document) target;
+        String version = document.getChangeToken();
+        if (version == null && document.getLastModificationDate() != null) {
+            version = String.valueOf(document.getLastModificationDate().getTimeInMillis());
+        }
+        if (version == null) {
+            logger.debug("The document with ID \"" + objectId + "\" has no change token, its content will not be cached.");
+            return document.getContentStream();
+        }
+
+        ContentStream cached = contentCache.get(objectId, version);
+        if (cached != null) {
+            logger.debug("Serving the content of the document with ID \"" + objectId + "\" from the content cache.");
+            return cached;
+        }
+        ContentStream content = document.getContentStream();
+        return content != null ? contentCache.put(objectId, version, content) : null;
+    }
+
+    public File downloadContent(CmisObject cmisObject, String objectId, String targetPath,
+                                int ranges, String checksumAlgorithm, String checksum) {
+        validateObjectOrId(cmisObject, objectId);
+        validateRedundantIdentifier(cmisObject, objectId);
+        Validate.notEmpty(targetPath, "targetPath is empty");
+        Validate.isTrue(ranges > 0, "ranges must be greater than zero");
+
+        CmisObject target = getCmisObject(cmisObject, objectId, OperationClass.CONTENT);
+
+        if (target != null && target instanceof Document) {
+            ParallelContentDownloader downloader = new ParallelContentDownloader(getSession(OperationClass.CONTENT));
+            return downloader.download((Document) target, new File(targetPath), ranges, checksumAlgorithm, checksum);
+        } else {
+            logger.error("Unable to obtain the object reference in order to download the content of the object.");
+        }
+        return null;
+    }
+
     public FileableCmisObject moveObject(FileableCmisObject cmisObject,
                                          String objectId,
                                          String sourceFolderId,
@@ -641,7 +1169,11 @@ public class ChemistryCMISFacade implements CMISFacade {
 
         FileableCmisObject target = getCmisObject(cmisObject, objectId, FileableCmisObject.class);
         if (target != null) {
-            return target.move(new ObjectIdImpl(sourceFolderId), new ObjectIdImpl(targetFolderId));
+            try {
+                return target.move(new ObjectIdImpl(sourceFolderId), new ObjectIdImpl(targetFolderId));
+            } finally {
+                pathsChanged();
+            }
         } else {
             logger.error("Unable to obtain the object reference in order to perform the object move.");
         }
@@ -650,7 +1182,7 @@ public class ChemistryCMISFacade implements CMISFacade {
 
     public CmisObject updateObjectProperties(CmisObject cmisObject,
                                              String objectId,
-                                             Map<String, String> properties) {
+                                             Map<String, Object> properties) {
         CmisObject returnObj = null;
 
         validateObjectOrId(cmisObject, objectId);
@@ -659,7 +1191,15 @@ public class ChemistryCMISFacade implements CMISFacade {
 
         CmisObject target = getCmisObject(cmisObject, objectId);
         if (target != null) {
-            returnObj = target.updateProperties(this.translateInboundProperties(properties));
+            try {
+                returnObj = target.updateProperties(this.translateInboundProperties(
+                        propertyConverter(getSession(this.connectionParameters), target.getType()), properties));
+            } finally {
+                // Renamed objects move to a new path
+                if (properties.containsKey(PropertyIds.NAME)) {
+                    pathsChanged();
+                }
+            }
         } else {
             logger.error("Unable to obtain the object reference in order to update the properties of the object.");
         }
@@ -681,7 +1221,7 @@ public class ChemistryCMISFacade implements CMISFacade {
                                    boolean allversions, UnfileObject unfile, boolean continueOnFailure) {
         validateObjectOrId(folder, folderId);
         validateRedundantIdentifier(folder, folderId);
-        CmisObject target = getCmisObject(folder, folderId);
+        CmisObject target = getCmisObject(folder, folderId, OperationClass.TREE);
         if (target != null && target instanceof Folder) {
             return ((Folder) target).deleteTree(allversions, unfile, continueOnFailure);
         }
@@ -746,7 +1286,7 @@ public class ChemistryCMISFacade implements CMISFacade {
                             Object content, String filename,
                             String mimeType, boolean major,
                             String checkinComment,
-                            Map<String, String> properties) {
+                            Map<String, Object> properties) {
         validateObjectOrId(document, documentId);
         validateRedundantIdentifier(document, documentId);
         Validate.notEmpty(filename, "filename is empty");
@@ -754,18 +1294,22 @@ public class ChemistryCMISFacade implements CMISFacade {
         Validate.notEmpty(mimeType, "did you mean application/octet-stream?");
         Validate.notEmpty(checkinComment, "checkinComment is empty");
 
-        CmisObject target = getCmisObject(document, documentId);
+        CmisObject target = getCmisObject(document, documentId, OperationClass.CONTENT);
         if (target != null && target instanceof Document) {
             Document doc = (Document) target;
-            return doc.checkIn(major, coalesceProperties(properties),
-                    createContentStream(filename, mimeType, content),
+            ObjectId returnId = doc.checkIn(major,
+                    coalesceProperties(translateInboundProperties(
+                            propertyConverter(getSession(OperationClass.CONTENT), doc.getType()), properties)),
+                    newContentStream(filename, mimeType, content),
                     checkinComment);
+            releaseContent(content);
+            return returnId;
         }
         return null;
     }
 
-    private Map<String, String> coalesceProperties(Map<String, String> properties) {
-        return properties != null ? properties : Collections.<String, String>emptyMap();
+    private Map<String, Object> coalesceProperties(Map<String, Object> properties) {
+        return properties != null ? properties : Collections.<String, Object>emptyMap();
     }
 
     public Acl applyAcl(CmisObject cmisObject, String objectId, List<Ace> addAces,
@@ -801,7 +1345,7 @@ public class ChemistryCMISFacade implements CMISFacade {
 
     public void applyAspect(String objectId,
                             String aspectName,
-                            Map<String, String> properties) {
+                            Map<String, Object> properties) {
         validateObjectOrId(null, objectId);
 
         CmisObject target = getCmisObject(null, objectId);
@@ -809,7 +1353,8 @@ public class ChemistryCMISFacade implements CMISFacade {
         if ((alfDocument != null) && (!alfDocument.hasAspect("P:" + aspectName))) {
             alfDocument.addAspect("P:" + aspectName);
             if (properties != null) {
-                alfDocument.updateProperties(this.translateInboundProperties(properties));
+                alfDocument.updateProperties(this.translateInboundProperties(
+                        propertyConverter(getSession(this.connectionParameters), "P:" + aspectName), properties));
             }
         }
         // End applyAspect
@@ -880,10 +1425,47 @@ public class ChemistryCMISFacade implements CMISFacade {
         }
     }
 
+    public Object detach(Object source, String properties) {
+        Validate.notNull(source, "source is null");
+        return DetachedObject.detach(source, properties);
+    }
+
+    public OutputHandler toJson(Object source, JsonFormat format, String properties) {
+        Validate.notNull(format, "format is null");
+        return new JsonOutputHandler(source, format, properties);
+    }
+
+    public File exportQuery(String statement, Boolean searchAllVersions, String orderBy, String targetPath,
+                            ExportFormat format, String columns, int pageSize) {
+        Validate.notEmpty(statement, "statement is empty");
+        Validate.notEmpty(targetPath, "targetPath is empty");
+        Validate.notNull(format, "format is null");
+        Validate.isTrue(pageSize > 0, "pageSize must be positive");
+
+        Session session = this.getSession(OperationClass.QUERY);
+        // Only the exported columns are fetched, without ACLs, policies or relationships
+        OperationContext ctx = createOperationContext(columns, orderBy);
+        ctx.setIncludeAcls(false);
+        ctx.setIncludePolicies(false);
+        ctx.setIncludeRelationships(IncludeRelationships.NONE);
+        ctx.setMaxItemsPerPage(pageSize);
+
+        ItemIterable<QueryResult> results = session.query(statement, Boolean.TRUE.equals(searchAllVersions), ctx);
+        return new QueryExporter(format, columns).export(results, new File(targetPath));
+    }
+
     private CmisObject getCmisObject(CmisObject object, String objectId) {
         return getCmisObject(object, objectId, CmisObject.class);
     }
 
+    private CmisObject getCmisObject(CmisObject object, String objectId, OperationClass operationClass) {
+        return getCmisObject(object, objectId, CmisObject.class, operationClass);
+    }
+
+    private <T> T getCmisObject(T object, String objectId, Class<T> clazz) {
+        return getCmisObject(object, objectId, clazz, OperationClass.METADATA);
+    }
+
     /**
      * Returns the object if it is not null. Otherwise, get the object by ID and
      * returns it if types match. Returns null if types don't match.
@@ -891,11 +1473,13 @@ public class ChemistryCMISFacade implements CMISFacade {
      * @return
      */
     @SuppressWarnings("unchecked")
-    private <T> T getCmisObject(T object, String objectId, Class<T> clazz) {
+    private <T> T getCmisObject(T object, String objectId, Class<T> clazz, OperationClass operationClass) {
         if (object != null) {
             return object;
         } else {
-            CmisObject obj = getObjectById(objectId);
+            CmisObject obj = operationClass == OperationClass.METADATA
+                    ? getObjectById(objectId)
+                    : getObjectById(getSession(operationClass), objectId);
             if ((obj != null) && clazz.isAssignableFrom(obj.getClass())) {
                 return (T) obj;
             }
@@ -903,35 +1487,99 @@ public class ChemistryCMISFacade implements CMISFacade {
         }
     }
 
+    /**
+     * Forgets the missing path of an object just created in the given folder.
+     */
+    private void pathCreated(CmisObject folder, String name) {
+        if (missingPathCache != null) {
+            // Only read when already fetched, resolving the path of the folder is not worth a call
+            String folderPath = folder.getPropertyValue(PropertyIds.PATH);
+            if (folderPath != null) {
+                missingPathCache.invalidate(StringUtils.removeEnd(folderPath, "/") + "/" + name);
+            } else {
+                missingPathCache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Forgets every missing path, for changes whose paths are not known.
+     */
+    private void pathsChanged() {
+        if (missingPathCache != null) {
+            missingPathCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Forgets the missing paths the created or updated objects of the change log may now occupy. Only folder
+     * events carry a path, any other creation or update forgets every path.
+     */
+    private void pathsChanged(List<ChangeEvent> events) {
+        if (missingPathCache == null || events == null) {
+            return;
+        }
+        for (ChangeEvent event : events) {
+            if (event.getChangeType() == ChangeType.CREATED || event.getChangeType() == ChangeType.UPDATED) {
+                List<?> paths = event.getProperties() != null ? event.getProperties().get(PropertyIds.PATH) : null;
+                if (paths != null && !paths.isEmpty() && paths.get(0) instanceof String) {
+                    missingPathCache.invalidate((String) paths.get(0));
+                } else {
+                    missingPathCache.invalidateAll();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Uses the given session instead of creating one.
+     */
+    void setSession(Session session) {
+        this.repositorySession = session;
+    }
+
     private Session getSession(Map<String, String> parameters) {
         Session repoSession = this.repositorySession;
+        if (repoSession != null) {
+            return repoSession;
+        }
 
         if (parameters == null) {
             throw new CMISConnectorConnectionException("Repository sessions cannot be obtained through the connector because the connector configuration " +
                     "is missing or incorrectly specified in the mule application configuration file.");
-        } else if (StringUtils.isEmpty(parameters.get(SessionParameter.REPOSITORY_ID))) {
-            // There must have been a problem dynamically obtaining the repository ID.
-            // Try again.
-            String repoID = getRepositoryID(parameters, this.baseURL);
+        }
 
-            if (repoID != null) {
-                parameters.put(SessionParameter.REPOSITORY_ID, repoID);
-            } else {
-                throw new CMISConnectorConnectionException("Repository sessions cannot be obtained through the connector because the repository ID is missing " +
-                        "from the connector configuration.");
+        boolean created = false;
+        // Callers arriving while the session is bootstrapped wait for it instead of creating their own
+        synchronized (sessionLock) {
+            repoSession = this.repositorySession;
+            if (repoSession == null) {
+                resolveWsdls(parameters);
+                if (StringUtils.isEmpty(parameters.get(SessionParameter.REPOSITORY_ID))) {
+                    // The repository ID was not resolved yet, either lazily or because it failed. Try again.
+                    String repoID = getRepositoryID(parameters, this.baseURL, repositoryCacheTtl);
+
+                    if (repoID != null) {
+                        parameters.put(SessionParameter.REPOSITORY_ID, repoID);
+                    } else {
+                        throw new CMISConnectorConnectionException("Repository sessions cannot be obtained through the connector because the repository ID is missing " +
+                                "from the connector configuration.");
+                    }
+                }
+
+                repoSession = createSession(parameters);
+                this.repositorySession = repoSession;
+                created = true;
             }
-            return null;
         }
 
-        if (repoSession == null) {
-            Validate.notNull(parameters);
+        if (created && typeDefinitionCache != null && !preloadTypes.isEmpty()) {
             try {
-                repoSession = SessionFactoryImpl.newInstance().createSession(parameters);
-                repoSession.getDefaultContext().setCacheEnabled(false);
-                this.repositorySession = repoSession;
-            } catch (Exception sessionEx) {
-                throw new CMISConnectorConnectionException("An error occurred while attempting to obtain a new repository session - " + sessionEx.getMessage(),
-                        sessionEx);
+                typeDefinitionCache.preload(repoSession, preloadTypes);
+            } catch (RuntimeException e) {
+                // Types that were not preloaded are fetched on their first use
+                logger.warn("Unable to preload the type definitions " + preloadTypes + ".", e);
             }
         }
 
@@ -939,48 +1587,195 @@ public class ChemistryCMISFacade implements CMISFacade {
         // End getSession
     }
 
+    /**
+     * Returns the session whose read timeout is the one of the given kind of calls. Kinds of calls without
+     * a read timeout of their own share the default session.
+     */
+    private Session getSession(OperationClass operationClass) {
+        Session defaultSession = getSession(this.connectionParameters);
+        String readTimeout = readTimeouts.get(operationClass);
+        if (defaultSession == null || readTimeout == null) {
+            return defaultSession;
+        }
+
+        synchronized (classSessions) {
+            Session session = classSessions.get(operationClass);
+            if (session == null) {
+                Map<String, String> parameters = new HashMap<String, String>(this.connectionParameters);
+                parameters.put(SessionParameter.READ_TIMEOUT, readTimeout);
+                session = createSession(parameters);
+                classSessions.put(operationClass, session);
+            }
+            return session;
+        }
+    }
+
+    private static Session createSession(Map<String, String> parameters) {
+        Validate.notNull(parameters);
+        try {
+            Session session = SessionFactoryImpl.newInstance().createSession(parameters);
+            session.getDefaultContext().setCacheEnabled(false);
+            return session;
+        } catch (Exception sessionEx) {
+            throw new CMISConnectorConnectionException("An error occurred while attempting to obtain a new repository session - " + sessionEx.getMessage(),
+                    sessionEx);
+        }
+    }
+
 
     //******************************************************************************
     // Method: translateInboundProperties
-    // Description: Translates an inbound set of String based properties to Object 
-    //   properties. In situations where a multi-value property is signified
-    //   by an "M:" prefix to the property name, then the property value is assumed to be
-    //   a list of values and is converted to an Array object this added to the output map.
+    // Description: Translates an inbound set of properties to the values expected by
+    //   the property definitions of the object type. In situations where a multi-value
+    //   property is signified by an "M:" prefix to the property name, then the property
+    //   value is assumed to be a list of values, see PropertyConverter.
     //******************************************************************************
-    private Map<String, Object> translateInboundProperties(Map<String, String> inboundProperties) {
-        Map<String, Object> returnMap = new HashMap<String, Object>();
-
-        if (inboundProperties == null) {
-            returnMap = null;
-        } else if (!inboundProperties.isEmpty()) {
-            Iterator<Map.Entry<String, String>> keySetItr = inboundProperties.entrySet().iterator();
-            while (keySetItr.hasNext()) {
-                Map.Entry<String, String> entry = keySetItr.next();
-                String currentKey = entry.getKey();
-                String currentVal = entry.getValue();
-
-                // Don't waste our time with empty properties.
-                if (currentVal != null) {
-                    // Determine if this is a multi-valued property.
-                    if (currentKey.toLowerCase().startsWith("m:")) {
-                        // This is a multi-valued property. Each value is separated by a ','.
-                        String[] valArray = currentVal.split(",");
-
-                        List<String> propArray = new ArrayList<String>(Arrays.asList(valArray));
-                        returnMap.put(currentKey.substring(2), propArray);
-                    } else {
-                        // Just add the property into the return list as is.
-                        returnMap.put(currentKey, currentVal);
-                    }
-                }
-            }
+    private Map<String, Object> translateInboundProperties(PropertyConverter converter,
+                                                           Map<String, Object> inboundProperties) {
+        return converter.convert(inboundProperties);
+        // End translateInboundProperties
+    }
+
+    /**
+     * Returns the converter of the properties of the given type. Types are resolved through the type
+     * definition cache when it is enabled.
+     */
+    private PropertyConverter propertyConverter(Session session, String typeId) {
+        if (StringUtils.isBlank(typeId)) {
+            return PropertyConverter.UNTYPED;
+        } else if (typeDefinitionCache != null) {
+            return typeDefinitionCache.converter(session, typeId);
         }
+        return PropertyConverter.compile(session.getTypeDefinition(typeId));
+    }
 
-        return returnMap;
-        // End translateInboundProperties
+    private PropertyConverter propertyConverter(Session session, ObjectType type) {
+        if (typeDefinitionCache != null) {
+            return typeDefinitionCache.converter(session, type.getId());
+        }
+        return PropertyConverter.compile(type);
     }
 
     public Map<String, String> getConnectionParameters() {
         return connectionParameters;
     }
+
+    /**
+     * Enables the deduplication of created documents by content hash.
+     *
+     * @param mode         what to do with duplicates
+     * @param index        the index of known content hashes
+     * @param hashProperty queryable property holding the content hash, can be null
+     */
+    public void setDeduplication(DeduplicationMode mode, DeduplicationIndex index, String hashProperty) {
+        Validate.notNull(mode, "mode is null");
+        Validate.isTrue(mode == DeduplicationMode.NONE || index != null, "index is null");
+        this.deduplicationMode = mode;
+        this.deduplicationIndex = index;
+        this.deduplicationHashProperty = hashProperty;
+    }
+
+    /**
+     * Sets the spooler used to make uploaded streams repeatable, null disables it.
+     */
+    public void setUploadSpooler(UploadSpooler uploadSpooler) {
+        this.uploadSpooler = uploadSpooler;
+    }
+
+    /**
+     * Sets the cache used to serve repeated downloads of the same document version, null disables it.
+     */
+    public void setContentCache(ContentCache contentCache) {
+        this.contentCache = contentCache;
+    }
+
+    /**
+     * Sets the milliseconds to wait for the responses of the repository, by default no timeout applies.
+     * Must be called before the first operation.
+     *
+     * @param readTimeout the default read timeout, can be null
+     * @param overrides   read timeouts of kinds of calls that differ from the default, can be empty
+     */
+    public void setReadTimeouts(String readTimeout, Map<OperationClass, String> overrides) {
+        String metadataTimeout = StringUtils.defaultIfEmpty(overrides.get(OperationClass.METADATA), readTimeout);
+        if (StringUtils.isNotEmpty(metadataTimeout)) {
+            this.connectionParameters.put(SessionParameter.READ_TIMEOUT, metadataTimeout);
+        }
+        for (OperationClass operationClass : OperationClass.values()) {
+            String timeout = StringUtils.defaultIfEmpty(overrides.get(operationClass), readTimeout);
+            if (operationClass != OperationClass.METADATA && StringUtils.isNotEmpty(timeout) &&
+                    !timeout.equals(metadataTimeout)) {
+                readTimeouts.put(operationClass, timeout);
+            }
+        }
+    }
+
+    /**
+     * Loads the WSDL documents of the SOAP binding from local copies. Must be called before the first operation.
+     * Missing copies are downloaded while the first session is created, in the background when connecting
+     * asynchronously.
+     */
+    public void setWsdlCache(WsdlCache wsdlCache) {
+        this.wsdlCache = wsdlCache;
+    }
+
+    /**
+     * Points the WSDL parameters to their local copies, once. Called while holding the session lock.
+     */
+    private void resolveWsdls(Map<String, String> parameters) {
+        WsdlCache cache = this.wsdlCache;
+        if (cache == null) {
+            return;
+        }
+        this.wsdlCache = null;
+        for (String service : WEBSERVICES_SERVICES) {
+            String wsdlUrl = parameters.get(service);
+            if (wsdlUrl != null) {
+                String serviceName = StringUtils.substringBefore(StringUtils.substringAfterLast(wsdlUrl, "/"), "?");
+                parameters.put(service, cache.localUrl(serviceName, wsdlUrl));
+            }
+        }
+    }
+
+    /**
+     * Sets the milliseconds operations made of several calls to the repository, such as creating a folder
+     * structure, may run. The deadline is checked before each call.
+     */
+    public void setOperationTimeout(Long operationTimeout) {
+        this.operationTimeout = operationTimeout;
+    }
+
+    /**
+     * Sets the milliseconds the repositories listed by the server are cached, shared by every connection
+     * to the same server and user. 0 disables the cache.
+     */
+    public void setRepositoryCacheTtl(long repositoryCacheTtl) {
+        this.repositoryCacheTtl = repositoryCacheTtl;
+    }
+
+    /**
+     * Sets the cache used to resolve type definitions, null fetches them on every use.
+     *
+     * @param preloadTypes types whose hierarchies are cached as soon as the session is created
+     */
+    public void setTypeDefinitionCache(TypeDefinitionCache typeDefinitionCache, List<String> preloadTypes) {
+        this.typeDefinitionCache = typeDefinitionCache;
+        this.preloadTypes = preloadTypes != null ? preloadTypes : Collections.<String>emptyList();
+    }
+
+    /**
+     * Sets the cache of the paths known to hold no object, null disables it.
+     */
+    public void setMissingPathCache(MissingPathCache missingPathCache) {
+        this.missingPathCache = missingPathCache;
+    }
+
+    /**
+     * Sets the single flight through which concurrent reads of the same object by id or by path share a single
+     * request, null disables it. Coalesced callers get the same {@link CmisObject} instance, which they must not
+     * modify locally.
+     */
+    void setObjectReads(SingleFlight<CmisObject> objectReads) {
+        this.objectReads = objectReads;
+    }
 }
@@ -0,0 +1,138 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.log4j.Logger;
+import org.mule.module.cmis.exception.CMISConnectorCircuitOpenException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free circuit breaker over the outcomes of the last calls to the repository. The circuit opens when
+ * the failure rate of a full window reaches the threshold; calls then fail fast until the open time elapses,
+ * when a single call is let through as a probe. A successful probe closes the circuit, a failed one keeps it open
+ * for another open time. While the circuit is open the outcomes of other calls, such as the ones that started
+ * before it opened, are ignored. Breakers are shared by all the connections to the same repository.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class);
+
+    private static final ConcurrentMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private static final long CLOSED = 0;
+
+    private final int failureRate;
+    private final int window;
+    private final long openTime;
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong(CLOSED);
+
+    /**
+     * @param failureRate percentage of failed calls that opens the circuit
+     * @param window      number of recent calls the failure rate is computed over
+     * @param openTime    milliseconds to wait before probing the repository again
+     */
+    public CircuitBreaker(int failureRate, int window, long openTime) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The circuit breaker window must be positive.");
+        }
+        this.failureRate = failureRate;
+        this.window = window;
+        this.openTime = openTime;
+        this.outcomes = new AtomicIntegerArray(window);
+    }
+
+    /**
+     * Returns the breaker of the given repository, creating it if needed.
+     */
+    public static CircuitBreaker shared(String key, int failureRate, int window, long openTime) {
+        CircuitBreaker breaker = BREAKERS.get(key);
+        if (breaker == null) {
+            CircuitBreaker created = new CircuitBreaker(failureRate, window, openTime);
+            breaker = BREAKERS.putIfAbsent(key, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Lets the call through or fails fast while the circuit is open.
+     *
+     * @return whether the call probes the repository, its outcome is the only one that closes the circuit
+     * @throws CMISConnectorCircuitOpenException if the circuit is open and another call is already probing
+     */
+    public boolean acquire(String operation) {
+        long opened = openedAt.get();
+        if (opened == CLOSED) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - opened < openTime || !openedAt.compareAndSet(opened, now)) {
+            throw new CMISConnectorCircuitOpenException("The circuit breaker is open after too many failed calls to " +
+                    "the repository, " + operation + " was not attempted.");
+        }
+        logger.info("Probing the repository with " + operation + " to close the circuit breaker.");
+        return true;
+    }
+
+    /**
+     * @param probe whether the call was let through as the probe of an open circuit
+     */
+    public void onSuccess(boolean probe) {
+        if (probe) {
+            close();
+        } else if (openedAt.get() == CLOSED) {
+            record(0);
+        }
+    }
+
+    /**
+     * @param probe whether the call was let through as the probe of an open circuit
+     */
+    public void onFailure(boolean probe) {
+        if (probe) {
+            // Wait for another open time
+            openedAt.set(System.currentTimeMillis());
+            return;
+        } else if (openedAt.get() != CLOSED) {
+            return;
+        }
+        record(1);
+        long recorded = calls.get();
+        if (recorded >= window && failures.get() * 100L >= (long) failureRate * window &&
+                openedAt.compareAndSet(CLOSED, System.currentTimeMillis())) {
+            logger.warn("Opening the circuit breaker, " + failures.get() + " of the last " + window +
+                    " calls to the repository failed.");
+        }
+    }
+
+    public boolean isOpen() {
+        return openedAt.get() != CLOSED;
+    }
+
+    private void record(int outcome) {
+        int slot = (int) (calls.getAndIncrement() % window);
+        failures.addAndGet(outcome - outcomes.getAndSet(slot, outcome));
+    }
+
+    private void close() {
+        for (int i = 0; i < window; i++) {
+            outcomes.set(i, 0);
+        }
+        failures.set(0);
+        calls.set(0);
+        openedAt.set(CLOSED);
+        logger.info("Closing the circuit breaker, the repository answered again.");
+    }
+}
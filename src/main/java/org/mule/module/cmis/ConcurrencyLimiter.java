@@ -0,0 +1,231 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.log4j.Logger;
+import org.mule.module.cmis.exception.CMISConnectorException;
+import org.mule.module.cmis.exception.CMISConnectorQueueTimeoutException;
+
+import javax.management.ObjectName;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent calls to a repository, adjusting the limit with additive increase and
+ * multiplicative decrease: the limit grows by one per window of calls while it is fully used, and is cut by 10%
+ * when a call fails to connect or takes more than twice the lowest latency seen for its operation. The latency
+ * of operations that transfer contents or lists of any size says nothing about the load of the repository, so
+ * they only decrease the limit when they fail to connect. Calls over
+ * the limit wait for a slot up to a timeout. Limiters are shared by all the connections to the same repository
+ * and registered as {@link ConcurrencyLimiterMXBean} named
+ * {@code org.mule.module.cmis:type=ConcurrencyLimiter,application=<application>,name=<connection>}.
+ */
+public class ConcurrencyLimiter implements ConcurrencyLimiterMXBean {
+    private static final Logger logger = Logger.getLogger(ConcurrencyLimiter.class);
+
+    private static final ConcurrentMap<String, ConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<String, ConcurrencyLimiter>();
+
+    private static final double DECREASE_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    // Lets the latency baseline of an operation drift up by 1/1024 per call, so it follows a repository that got slower
+    private static final int BASELINE_DRIFT_SHIFT = 10;
+    private static final Set<FacadeOperation> SIZE_DEPENDENT = EnumSet.of(
+            FacadeOperation.CHANGELOG,
+            FacadeOperation.CREATE_DOCUMENT_BY_PATH,
+            FacadeOperation.CREATE_DOCUMENT_BY_PATH_FROM_CONTENT,
+            FacadeOperation.UPSERT_DOCUMENT_BY_PATH,
+            FacadeOperation.COPY_DOCUMENT,
+            FacadeOperation.COPY_FOLDER_TREE,
+            FacadeOperation.CREATE_DOCUMENT_BY_ID,
+            FacadeOperation.CREATE_DOCUMENT_BY_ID_FROM_CONTENT,
+            FacadeOperation.GET_CHECKOUT_DOCS,
+            FacadeOperation.QUERY,
+            FacadeOperation.FOLDER,
+            FacadeOperation.GET_CONTENT_STREAM,
+            FacadeOperation.DOWNLOAD_CONTENT,
+            FacadeOperation.DELETE_TREE,
+            FacadeOperation.GET_ALL_VERSIONS,
+            FacadeOperation.CHECK_IN,
+            FacadeOperation.EXPORT_QUERY);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long queueTimeout;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final AtomicLongArray baselines = new AtomicLongArray(FacadeOperation.values().length);
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long queueTimeouts;
+    private long lastDecrease = System.nanoTime();
+
+    /**
+     * @param initialLimit number of concurrent calls allowed at first
+     * @param minLimit     lowest limit the decreases can reach
+     * @param maxLimit     highest limit the increases can reach
+     * @param queueTimeout milliseconds a call waits for a slot before failing
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long queueTimeout) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("The concurrency limits must satisfy 1 <= minimum <= maximum.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueTimeout = queueTimeout;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Returns the limiter of the given repository, creating and registering it if needed.
+     */
+    public static ConcurrencyLimiter shared(String key, int initialLimit, int minLimit, int maxLimit, long queueTimeout) {
+        ConcurrencyLimiter limiter = LIMITERS.get(key);
+        if (limiter == null) {
+            ConcurrencyLimiter created = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, queueTimeout);
+            limiter = LIMITERS.putIfAbsent(key, created);
+            if (limiter == null) {
+                limiter = created;
+                register(key, created);
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * Waits for a slot.
+     *
+     * @return the {@link System#nanoTime()} at which the slot was granted, to be passed to
+     * {@link #release(FacadeOperation, long, boolean)}
+     * @throws CMISConnectorQueueTimeoutException if no slot was available within the queue timeout
+     */
+    long acquire(FacadeOperation operation) {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+                waiting++;
+                try {
+                    while (inFlight >= (int) limit) {
+                        if (remaining <= 0) {
+                            queueTimeouts++;
+                            throw new CMISConnectorQueueTimeoutException("No slot to call the repository became " +
+                                    "available within " + queueTimeout + " ms, " + operation.getMethodName() +
+                                    " was not attempted.");
+                        }
+                        remaining = available.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CMISConnectorException(e);
+                } finally {
+                    waiting--;
+                }
+            }
+            inFlight++;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of a finished call and adjusts the limit.
+     *
+     * @param start      the value returned by {@link #acquire(FacadeOperation)}
+     * @param overloaded whether the call failed to connect to the repository
+     */
+    void release(FacadeOperation operation, long start, boolean overloaded) {
+        long now = System.nanoTime();
+        boolean slow = isSlow(operation, now - start);
+        lock.lock();
+        try {
+            if (overloaded || slow) {
+                // Decrease once per round of calls, the calls started before the last decrease do not count
+                if (start - lastDecrease > 0) {
+                    limit = Math.max(minLimit, limit * DECREASE_RATIO);
+                    lastDecrease = now;
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Decreased the concurrency limit to " + (int) limit + " after " +
+                                operation.getMethodName() + (overloaded ? " failed." : " was slow."));
+                    }
+                }
+            } else if (inFlight >= (int) limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            inFlight--;
+            for (int slots = Math.min(waiting, (int) limit - inFlight); slots > 0; slots--) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isSlow(FacadeOperation operation, long latency) {
+        if (SIZE_DEPENDENT.contains(operation)) {
+            return false;
+        }
+        int index = operation.ordinal();
+        long baseline = baselines.get(index);
+        if (baseline == 0 || latency < baseline) {
+            baselines.set(index, Math.max(1, latency));
+            return false;
+        }
+        baselines.compareAndSet(index, baseline, baseline + Math.max(1, baseline >> BASELINE_DRIFT_SHIFT));
+        return latency > LATENCY_TOLERANCE * baseline;
+    }
+
+    @Override
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getQueueTimeouts() {
+        lock.lock();
+        try {
+            return queueTimeouts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void register(String key, ConcurrencyLimiter limiter) {
+        MBeanRegistry.add("type=ConcurrencyLimiter,name=" + ObjectName.quote(key), limiter);
+    }
+}
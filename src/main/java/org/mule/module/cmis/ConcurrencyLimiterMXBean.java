@@ -0,0 +1,29 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * State of a concurrency limiter published through JMX.
+ */
+public interface ConcurrencyLimiterMXBean {
+
+    /**
+     * @return the number of calls currently allowed to run concurrently
+     */
+    int getLimit();
+
+    int getInFlight();
+
+    /**
+     * @return the number of calls waiting for a slot
+     */
+    int getQueueDepth();
+
+    /**
+     * @return the number of calls that gave up waiting for a slot
+     */
+    long getQueueTimeouts();
+}
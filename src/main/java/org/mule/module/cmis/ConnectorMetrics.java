@@ -0,0 +1,74 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import javax.management.ObjectName;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metrics of the operations of a connector configuration. Each operation is registered as an
+ * {@link OperationMetricsMXBean} named
+ * {@code org.mule.module.cmis:type=Operation,application=<application>,config=<name>,name=<operation>}
+ * the first time it is invoked. Metrics are shared by all the connections of the configuration.
+ */
+public class ConnectorMetrics {
+    static final String DOMAIN = "org.mule.module.cmis";
+
+    private static final ConcurrentMap<String, ConnectorMetrics> METRICS = new ConcurrentHashMap<String, ConnectorMetrics>();
+
+    private final String name;
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+
+    public ConnectorMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the metrics of the given configuration, creating them if needed.
+     */
+    public static ConnectorMetrics shared(String name) {
+        ConnectorMetrics metrics = METRICS.get(name);
+        if (metrics == null) {
+            ConnectorMetrics created = new ConnectorMetrics(name);
+            metrics = METRICS.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the metrics of the given operation, creating and registering them if needed.
+     */
+    public OperationMetrics operation(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(operation);
+            metrics = operations.putIfAbsent(operation, created);
+            if (metrics == null) {
+                metrics = created;
+                register(created);
+            }
+        }
+        return metrics;
+    }
+
+    public Collection<OperationMetrics> getOperations() {
+        return operations.values();
+    }
+
+    private void register(OperationMetrics metrics) {
+        MBeanRegistry.add("type=Operation,config=" + ObjectName.quote(name) +
+                ",name=" + ObjectName.quote(metrics.getOperation()), metrics);
+    }
+}
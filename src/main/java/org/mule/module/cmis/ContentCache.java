@@ -0,0 +1,309 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Size bounded, least recently used cache of document contents stored on the local disk.
+ * Entries are keyed by object id and change token, so a new change token makes the previous
+ * content of the object unreachable. Caches are shared by all the connections using the same directory.
+ */
+public class ContentCache {
+    private static final Logger logger = Logger.getLogger(ContentCache.class);
+
+    private static final ConcurrentMap<String, ContentCache> CACHES = new ConcurrentHashMap<String, ContentCache>();
+    private static final String SUFFIX = ".content";
+
+    private final File directory;
+    private final long maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final Map<String, String> keysByObjectId = new HashMap<String, String>();
+    private long size;
+
+    public ContentCache(File directory, long maxSize) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Unable to create the content cache directory " + directory.getAbsolutePath());
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        purge();
+    }
+
+    /**
+     * Returns the cache stored in the given directory, creating it if needed.
+     */
+    public static ContentCache shared(String directory, long maxSize) {
+        File dir = new File(directory).getAbsoluteFile();
+        ContentCache cache = CACHES.get(dir.getPath());
+        if (cache == null) {
+            ContentCache created = new ContentCache(dir, maxSize);
+            cache = CACHES.putIfAbsent(dir.getPath(), created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cached content of the given object version or null if it is not cached.
+     */
+    public ContentStream get(String objectId, String changeToken) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key(objectId, changeToken));
+        }
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return entry.open();
+        } catch (FileNotFoundException e) {
+            logger.debug("Cached content of object \"" + objectId + "\" was removed from the disk.", e);
+            invalidate(objectId);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a stream over the content of the given object version that stores the content while it is read.
+     * The content is only cached once the stream was read until its end and closed, streams closed earlier
+     * leave nothing behind. Contents bigger than the cache are not stored and the given stream is returned as is.
+     */
+    public ContentStream put(String objectId, String changeToken, ContentStream content) {
+        if (content.getLength() > maxSize) {
+            return content;
+        }
+
+        File file;
+        OutputStream out;
+        try {
+            file = File.createTempFile("cmis", SUFFIX, directory);
+            out = new BufferedOutputStream(new FileOutputStream(file));
+        } catch (IOException e) {
+            logger.warn("Unable to cache the content of object \"" + objectId + "\".", e);
+            return content;
+        }
+
+        InputStream stream = new CachingInputStream(content.getStream(), objectId, key(objectId, changeToken), file, out,
+                content.getFileName(), content.getMimeType());
+        return new ContentStreamImpl(content.getFileName(), content.getBigLength(), content.getMimeType(), stream);
+    }
+
+    private synchronized void commit(String objectId, String key, Entry entry) {
+        String previous = keysByObjectId.put(objectId, key);
+        if (previous != null) {
+            remove(previous);
+        }
+        remove(key);
+        entries.put(key, entry);
+        size += entry.length;
+        evict();
+    }
+
+    /**
+     * Removes every cached version of the given object.
+     */
+    public synchronized void invalidate(String objectId) {
+        String key = keysByObjectId.remove(objectId);
+        if (key != null) {
+            remove(key);
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.length;
+            delete(entry.file);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue().length;
+            delete(eldest.getValue().file);
+            String objectId = eldest.getKey().substring(0, eldest.getKey().indexOf('\n'));
+            if (eldest.getKey().equals(keysByObjectId.get(objectId))) {
+                keysByObjectId.remove(objectId);
+            }
+        }
+    }
+
+    /**
+     * Removes contents left by previous runs, which are not indexed.
+     */
+    private void purge() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    private static String key(String objectId, String changeToken) {
+        return objectId + '\n' + changeToken;
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.warn("Unable to delete the cached content \"" + file.getAbsolutePath() + "\".");
+        }
+    }
+
+    /**
+     * Copies the content into the cache file while the caller reads it and adds the file to the cache when the
+     * stream is closed after its end was reached.
+     */
+    private class CachingInputStream extends FilterInputStream {
+        private final String objectId;
+        private final String key;
+        private final File file;
+        private final String fileName;
+        private final String mimeType;
+        private OutputStream out;
+        private long written;
+        private boolean complete;
+
+        private CachingInputStream(InputStream in, String objectId, String key, File file, OutputStream out,
+                                   String fileName, String mimeType) {
+            super(in);
+            this.objectId = objectId;
+            this.key = key;
+            this.file = file;
+            this.out = out;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                complete = true;
+            } else if (out != null) {
+                if (written + 1 > maxSize) {
+                    abandon(null);
+                } else {
+                    try {
+                        out.write(b);
+                        written++;
+                    } catch (IOException e) {
+                        abandon(e);
+                    }
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                complete = true;
+            } else if (read > 0 && out != null) {
+                if (written + read > maxSize) {
+                    abandon(null);
+                } else {
+                    try {
+                        out.write(b, off, read);
+                        written += read;
+                    } catch (IOException e) {
+                        abandon(e);
+                    }
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes are not copied, so the content can no longer be cached
+            abandon(null);
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (out != null) {
+                    OutputStream copy = out;
+                    out = null;
+                    try {
+                        copy.close();
+                        if (complete) {
+                            commit(objectId, key, new Entry(file, written, fileName, mimeType));
+                        } else {
+                            delete(file);
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Unable to cache the content of object \"" + objectId + "\".", e);
+                        delete(file);
+                    }
+                }
+            }
+        }
+
+        private void abandon(IOException cause) {
+            if (cause != null) {
+                logger.warn("Unable to cache the content of object \"" + objectId + "\".", cause);
+            }
+            IOUtils.closeQuietly(out);
+            out = null;
+            delete(file);
+        }
+    }
+
+    private static class Entry {
+        private final File file;
+        private final long length;
+        private final String fileName;
+        private final String mimeType;
+
+        private Entry(File file, long length, String fileName, String mimeType) {
+            this.file = file;
+            this.length = length;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+        }
+
+        private ContentStream open() throws FileNotFoundException {
+            InputStream stream = Channels.newInputStream(new RandomAccessFile(file, "r").getChannel());
+            return new ContentStreamImpl(fileName, BigInteger.valueOf(length), mimeType, stream);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.mule.module.cmis.exception.CMISConnectorTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which an operation made of several calls to the repository must be done.
+ * It is passed down to the steps of the operation, which check it before each call.
+ */
+class Deadline {
+    /**
+     * Deadline that never expires.
+     */
+    static final Deadline NONE = new Deadline(Long.MAX_VALUE, 0);
+
+    private final long timeout;
+    private final long expiresAt;
+
+    private Deadline(long expiresAt, long timeout) {
+        this.expiresAt = expiresAt;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param timeout milliseconds from now, null or not positive for a deadline that never expires
+     */
+    static Deadline after(Long timeout) {
+        if (timeout == null || timeout <= 0) {
+            return NONE;
+        }
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout), timeout);
+    }
+
+    boolean isExpired() {
+        return this != NONE && System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+     * @param step description of the call about to be made
+     * @throws CMISConnectorTimeoutException if the deadline has passed
+     */
+    void check(String step) {
+        if (isExpired()) {
+            throw new CMISConnectorTimeoutException("The operation did not complete within " + timeout +
+                    " ms, it was stopped before " + step + ".");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least recently used index of content hashes to the id of the document holding that content.
+ * Indexes are shared by all the connections to the same repository.
+ */
+public class DeduplicationIndex {
+
+    private static final ConcurrentMap<String, DeduplicationIndex> INDEXES = new ConcurrentHashMap<String, DeduplicationIndex>();
+
+    private final Map<String, String> objectIds;
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public DeduplicationIndex(final int maxEntries) {
+        this.objectIds = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Returns the index shared by the connections identified by the given key, creating it if needed.
+     */
+    public static DeduplicationIndex shared(String key, int maxEntries) {
+        DeduplicationIndex index = INDEXES.get(key);
+        if (index == null) {
+            DeduplicationIndex created = new DeduplicationIndex(maxEntries);
+            index = INDEXES.putIfAbsent(key, created);
+            if (index == null) {
+                index = created;
+            }
+        }
+        return index;
+    }
+
+    public String get(String hash) {
+        return objectIds.get(hash);
+    }
+
+    public void put(String hash, String objectId) {
+        objectIds.put(hash, objectId);
+    }
+
+    public void remove(String hash) {
+        objectIds.remove(hash);
+    }
+
+    /**
+     * Records that an upload of the given size was avoided.
+     *
+     * @return the total number of bytes saved so far
+     */
+    public long recordDuplicate(long length) {
+        duplicates.incrementAndGet();
+        return length > 0 ? bytesSaved.addAndGet(length) : bytesSaved.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public int size() {
+        return objectIds.size();
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * Enum holding what to do when the content of a document being created is already in the repository
+ */
+public enum DeduplicationMode {
+    /**
+     * The content is always uploaded.
+     */
+    NONE,
+    /**
+     * The upload is skipped and the id of the existing document is returned.
+     */
+    SKIP,
+    /**
+     * The existing document is filed in the target folder as well (multi-filing) and its id is returned.
+     * Behaves like SKIP when the repository does not support multi-filing.
+     */
+    LINK
+}
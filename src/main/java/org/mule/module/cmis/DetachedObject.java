@@ -0,0 +1,207 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable, serializable copy of the properties of a {@link CmisObject} or {@link QueryResult}. Unlike the
+ * OpenCMIS objects it holds no reference to the session, type definitions, ACLs or policies, so it can be kept
+ * in flow variables or in a clustered object store. Property ids and values are kept in two parallel arrays,
+ * with interned ids shared by all the copies. The values of query results are kept as lists, as the repository
+ * does not tell single-valued columns apart.
+ */
+public final class DetachedObject implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] propertyIds;
+    private final Object[] values;
+
+    private DetachedObject(String[] propertyIds, Object[] values) {
+        this.propertyIds = propertyIds;
+        this.values = values;
+    }
+
+    /**
+     * Detaches an object, a query result or every element of a list or iterable of them.
+     *
+     * @param source     the objects to detach
+     * @param properties comma separated ids of the properties to keep, all of them if blank
+     * @return a {@link DetachedObject} or a list of them
+     */
+    public static Object detach(Object source, String properties) {
+        Set<String> filter = parseFilter(properties);
+        if (source instanceof Iterable) {
+            List<DetachedObject> detached = new ArrayList<DetachedObject>();
+            for (Object element : (Iterable<?>) source) {
+                detached.add(detachOne(element, filter));
+            }
+            return detached;
+        }
+        return detachOne(source, filter);
+    }
+
+    static DetachedObject detachOne(Object source, Set<String> filter) {
+        if (source instanceof CmisObject) {
+            return of(((CmisObject) source).getProperties(), filter);
+        } else if (source instanceof QueryResult) {
+            return ofQueryResult(((QueryResult) source).getProperties(), filter);
+        } else if (source instanceof DetachedObject) {
+            return (DetachedObject) source;
+        }
+        throw new IllegalArgumentException("Only CMIS objects and query results can be detached, received: " +
+                (source == null ? null : source.getClass().getName()));
+    }
+
+    private static DetachedObject of(List<Property<?>> properties, Set<String> filter) {
+        int size = properties == null ? 0 : properties.size();
+        String[] ids = new String[size];
+        Object[] values = new Object[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Property<?> property = properties.get(i);
+            if (filter == null || filter.contains(property.getId())) {
+                ids[count] = property.getId().intern();
+                values[count++] = copy(property.isMultiValued() ? property.getValues() : property.getFirstValue());
+            }
+        }
+        return new DetachedObject(trim(ids, count), trim(values, count));
+    }
+
+    private static DetachedObject ofQueryResult(List<PropertyData<?>> properties, Set<String> filter) {
+        int size = properties == null ? 0 : properties.size();
+        String[] ids = new String[size];
+        Object[] values = new Object[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            PropertyData<?> property = properties.get(i);
+            String id = property.getId() != null ? property.getId() : property.getQueryName();
+            if (filter == null || filter.contains(id)) {
+                ids[count] = id.intern();
+                // Query columns carry no cardinality, unless they come with their definition, so they keep the
+                // list of values the repository returned
+                values[count++] = copy(property instanceof Property && !((Property<?>) property).isMultiValued()
+                        ? property.getFirstValue() : property.getValues());
+            }
+        }
+        return new DetachedObject(trim(ids, count), trim(values, count));
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof List) {
+            return Collections.unmodifiableList(new ArrayList<Object>((List<?>) value));
+        } else if (value instanceof Calendar) {
+            // Calendars are mutable
+            return ((Calendar) value).clone();
+        }
+        return value;
+    }
+
+    static Set<String> parseFilter(String properties) {
+        if (StringUtils.isBlank(properties)) {
+            return null;
+        }
+        Set<String> filter = new HashSet<String>();
+        for (String property : StringUtils.split(properties, ',')) {
+            if (StringUtils.isNotBlank(property)) {
+                filter.add(property.trim());
+            }
+        }
+        return filter;
+    }
+
+    private static String[] trim(String[] array, int length) {
+        return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    private static Object[] trim(Object[] array, int length) {
+        return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    /**
+     * @return the object id or null if it was filtered out
+     */
+    public String getId() {
+        Object id = first(getPropertyValue(PropertyIds.OBJECT_ID));
+        return id != null ? id.toString() : null;
+    }
+
+    public String getName() {
+        Object name = first(getPropertyValue(PropertyIds.NAME));
+        return name != null ? name.toString() : null;
+    }
+
+    public String getObjectTypeId() {
+        Object type = first(getPropertyValue(PropertyIds.OBJECT_TYPE_ID));
+        return type != null ? type.toString() : null;
+    }
+
+    private static Object first(Object value) {
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            return values.isEmpty() ? null : values.get(0);
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of the property, a list for multi-valued properties and query results, or null if it was
+     * not kept
+     */
+    public Object getPropertyValue(String propertyId) {
+        for (int i = 0; i < propertyIds.length; i++) {
+            if (propertyIds[i].equals(propertyId)) {
+                return copy(values[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a new map of the property values by property id, in the order they were copied
+     */
+    public Map<String, Object> getProperties() {
+        Map<String, Object> properties = new LinkedHashMap<String, Object>((int) (propertyIds.length / 0.75f) + 1);
+        for (int i = 0; i < propertyIds.length; i++) {
+            properties.put(propertyIds[i], copy(values[i]));
+        }
+        return properties;
+    }
+
+    /**
+     * Keeps the property ids shared after deserialization.
+     */
+    private Object readResolve() {
+        for (int i = 0; i < propertyIds.length; i++) {
+            propertyIds[i] = propertyIds[i].intern();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DetachedObject && Arrays.equals(propertyIds, ((DetachedObject) other).propertyIds) &&
+                Arrays.equals(values, ((DetachedObject) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(propertyIds) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "DetachedObject" + getProperties();
+    }
+}
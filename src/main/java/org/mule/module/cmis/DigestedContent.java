@@ -0,0 +1,94 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+
+/**
+ * Content whose SHA-256 hash has been computed before the upload. Streams are spooled while
+ * they are hashed, so they can still be uploaded afterwards.
+ */
+class DigestedContent {
+
+    /**
+     * Threshold used to spool streams when no {@link UploadSpooler} is configured.
+     */
+    private static final int MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final byte[] bytes;
+    private final SpooledContent spooled;
+    private final boolean ownsSpool;
+    private final String hash;
+
+    private DigestedContent(byte[] bytes, SpooledContent spooled, boolean ownsSpool, String hash) {
+        this.bytes = bytes;
+        this.spooled = spooled;
+        this.ownsSpool = ownsSpool;
+        this.hash = hash;
+    }
+
+    /**
+     * Computes the hash of the given String, byte array or InputStream content.
+     *
+     * @param spooler spooler that keeps the copy of streams for retries, can be null
+     */
+    static DigestedContent digest(Object content, UploadSpooler spooler) {
+        if (content instanceof String) {
+            try {
+                return digest(((String) content).getBytes("UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw new CMISConnectorException(e);
+            }
+        } else if (content instanceof byte[]) {
+            return digest((byte[]) content);
+        } else if (content instanceof InputStream) {
+            if (spooler != null) {
+                SpooledContent spooled = spooler.spool((InputStream) content, true);
+                return new DigestedContent(null, spooled, false, spooled.getHash());
+            }
+            SpooledContent spooled = SpooledContent.spool((InputStream) content, MEMORY_THRESHOLD, true);
+            return new DigestedContent(null, spooled, true, spooled.getHash());
+        }
+        throw new IllegalArgumentException("Only String, byte array or InputStream contents can be digested. The received type is: " +
+                content.getClass());
+    }
+
+    private static DigestedContent digest(byte[] bytes) {
+        return new DigestedContent(bytes, null, false, SpooledContent.toHex(SpooledContent.newDigest().digest(bytes)));
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    long getLength() {
+        return bytes != null ? bytes.length : spooled.getLength();
+    }
+
+    /**
+     * Creates a content stream over the digested content.
+     */
+    ContentStream newContentStream(String filename, String mimeType) {
+        InputStream stream = bytes != null ? new ByteArrayInputStream(bytes) : spooled.openStream();
+        return new ContentStreamImpl(filename, BigInteger.valueOf(getLength()), mimeType, stream);
+    }
+
+    /**
+     * Releases the spooled copy of the content, unless it is kept by an {@link UploadSpooler}.
+     */
+    void dispose() {
+        if (ownsSpool) {
+            spooled.dispose();
+        }
+    }
+}
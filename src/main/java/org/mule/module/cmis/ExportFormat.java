@@ -0,0 +1,20 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * File formats of exported query results
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line
+     */
+    NDJSON,
+    /**
+     * Comma separated values with a header line, multiple values are separated by semicolons
+     */
+    CSV;
+}
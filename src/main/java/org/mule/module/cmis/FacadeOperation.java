@@ -0,0 +1,87 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * The operations of {@link CMISFacade}, as seen by {@link CMISFacadeAdaptor}. Operations are idempotent when
+ * repeating them after a failure leaves the repository as a single successful call would, so they can be retried.
+ */
+enum FacadeOperation {
+    REPOSITORIES("repositories", true),
+    REPOSITORY_INFO("repositoryInfo", true),
+    CHANGELOG("changelog", true),
+    GET_OBJECT_BY_ID("getObjectById", true),
+    GET_OBJECT_BY_PATH("getObjectByPath", true),
+    EXISTS("exists", true),
+    GET_OBJECT_ID_BY_PATH("getObjectIdByPath", true),
+    CREATE_DOCUMENT_BY_PATH("createDocumentByPath", false),
+    CREATE_DOCUMENT_BY_PATH_FROM_CONTENT("createDocumentByPathFromContent", false),
+    UPSERT_DOCUMENT_BY_PATH("upsertDocumentByPath", false),
+    GET_OR_CREATE_FOLDER_BY_PATH("getOrCreateFolderByPath", true),
+    COPY_DOCUMENT("copyDocument", false),
+    COPY_FOLDER_TREE("copyFolderTree", false),
+    CREATE_FOLDER("createFolder", false),
+    CREATE_DOCUMENT_BY_ID("createDocumentById", false),
+    CREATE_DOCUMENT_BY_ID_FROM_CONTENT("createDocumentByIdFromContent", false),
+    GET_TYPE_DEFINITION("getTypeDefinition", true),
+    GET_CHECKOUT_DOCS("getCheckoutDocs", true),
+    QUERY("query", true),
+    GET_PARENT_FOLDERS("getParentFolders", true),
+    FOLDER("folder", true),
+    GET_CONTENT_STREAM("getContentStream", true),
+    DOWNLOAD_CONTENT("downloadContent", true),
+    MOVE_OBJECT("moveObject", false),
+    UPDATE_OBJECT_PROPERTIES("updateObjectProperties", true),
+    DELETE("delete", false),
+    DELETE_TREE("deleteTree", false),
+    GET_OBJECT_RELATIONSHIPS("getObjectRelationships", true),
+    GET_ACL("getAcl", true),
+    APPLY_ACL("applyAcl", true),
+    GET_ALL_VERSIONS("getAllVersions", true),
+    CHECK_OUT("checkOut", false),
+    CANCEL_CHECK_OUT("cancelCheckOut", false),
+    CHECK_IN("checkIn", false),
+    GET_APPLIED_POLICIES("getAppliedPolicies", true),
+    APPLY_POLICY("applyPolicy", false),
+    APPLY_ASPECT("applyAspect", true),
+    CREATE_RELATIONSHIP("createRelationship", false),
+    DETACH("detach", false, true),
+    TO_JSON("toJson", false, true),
+    EXPORT_QUERY("exportQuery", true);
+
+    private final String methodName;
+    private final boolean idempotent;
+    private final boolean local;
+
+    FacadeOperation(String methodName, boolean idempotent) {
+        this(methodName, idempotent, false);
+    }
+
+    FacadeOperation(String methodName, boolean idempotent, boolean local) {
+        this.methodName = methodName;
+        this.idempotent = idempotent;
+        this.local = local;
+    }
+
+    /**
+     * @return the name of the facade method, also used to name the metrics of the operation
+     */
+    String getMethodName() {
+        return methodName;
+    }
+
+    boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * @return whether the operation runs without calling the repository, in which case neither the circuit
+     * breaker nor the concurrency limit apply to it
+     */
+    boolean isLocal() {
+        return local;
+    }
+}
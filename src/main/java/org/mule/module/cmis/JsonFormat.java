@@ -0,0 +1,20 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * Layouts of the JSON written by the connector
+ */
+public enum JsonFormat {
+    /**
+     * A single JSON array holding one object per item
+     */
+    JSON,
+    /**
+     * One JSON object per line, also known as newline delimited JSON
+     */
+    NDJSON;
+}
@@ -0,0 +1,195 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ChangeEvent;
+import org.apache.chemistry.opencmis.client.api.ChangeEvents;
+import org.apache.chemistry.opencmis.client.api.Tree;
+import org.mule.api.MuleEvent;
+import org.mule.api.transport.OutputHandler;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes CMIS objects, query results or change events as JSON while they are read, so iterables such as query
+ * results are fetched page by page as the payload is consumed instead of being held in memory. Objects are
+ * written as their property values by property id, folder trees with their children and change events with
+ * their object id, change type, change time and properties.
+ */
+public class JsonOutputHandler implements OutputHandler {
+
+    // Writes the first item right away and then in batches, to keep the time to the first byte low
+    private static final int FLUSH_INTERVAL = 100;
+
+    private final Object source;
+    private final JsonFormat format;
+    private final Set<String> properties;
+
+    /**
+     * @param source     an object, a query result, a change event, a folder tree or an iterable of them
+     * @param format     the layout of the items
+     * @param properties comma separated ids of the properties to write, all of them if blank
+     */
+    public JsonOutputHandler(Object source, JsonFormat format, String properties) {
+        this.source = source;
+        this.format = format != null ? format : JsonFormat.JSON;
+        this.properties = DetachedObject.parseFilter(properties);
+    }
+
+    @Override
+    public void write(MuleEvent event, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+        Iterable<?> items = items(source);
+
+        if (format == JsonFormat.JSON) {
+            writer.write('[');
+        }
+        int count = 0;
+        for (Object item : items) {
+            if (count > 0) {
+                writer.write(format == JsonFormat.JSON ? ',' : '\n');
+            }
+            writeItem(writer, item);
+            if (++count % FLUSH_INTERVAL == 1) {
+                writer.flush();
+            }
+        }
+        if (format == JsonFormat.JSON) {
+            writer.write(']');
+        } else if (count > 0) {
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static Iterable<?> items(Object source) {
+        if (source instanceof ChangeEvents) {
+            return ((ChangeEvents) source).getChangeEvents();
+        } else if (source instanceof Iterable) {
+            return (Iterable<?>) source;
+        } else if (source == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(source);
+    }
+
+    private void writeItem(Writer writer, Object item) throws IOException {
+        if (item instanceof ChangeEvent) {
+            ChangeEvent changeEvent = (ChangeEvent) item;
+            writer.write("{\"objectId\":");
+            writeValue(writer, changeEvent.getObjectId());
+            writer.write(",\"changeType\":");
+            writeValue(writer, changeEvent.getChangeType() != null ? changeEvent.getChangeType().value() : null);
+            writer.write(",\"changeTime\":");
+            writeValue(writer, changeEvent.getChangeTime());
+            writer.write(",\"properties\":");
+            // Change events hold every value in a list, single values are written as such
+            writeProperties(writer, changeEvent.getProperties(), true);
+            writer.write('}');
+        } else if (item instanceof Tree) {
+            Tree<?> tree = (Tree<?>) item;
+            writer.write("{\"object\":");
+            writeItem(writer, tree.getItem());
+            writer.write(",\"children\":[");
+            List<? extends Tree<?>> children = tree.getChildren();
+            if (children != null) {
+                for (int i = 0; i < children.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeItem(writer, children.get(i));
+                }
+            }
+            writer.write("]}");
+        } else {
+            writeProperties(writer, DetachedObject.detachOne(item, properties).getProperties(), false);
+        }
+    }
+
+    private void writeProperties(Writer writer, Map<String, ?> values, boolean unwrapSingleValues) throws IOException {
+        writer.write('{');
+        if (values != null) {
+            boolean first = true;
+            for (Map.Entry<String, ?> entry : values.entrySet()) {
+                if (properties != null && !properties.contains(entry.getKey())) {
+                    continue;
+                }
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeString(writer, entry.getKey());
+                writer.write(':');
+                Object value = entry.getValue();
+                if (unwrapSingleValues && value instanceof List && ((List<?>) value).size() == 1) {
+                    value = ((List<?>) value).get(0);
+                }
+                writeValue(writer, value);
+            }
+        }
+        writer.write('}');
+    }
+
+    static void writeValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof Calendar) {
+            writeString(writer, DatatypeConverter.printDateTime((Calendar) value));
+        } else if (value instanceof Date) {
+            Calendar calendar = new GregorianCalendar();
+            calendar.setTime((Date) value);
+            writeString(writer, DatatypeConverter.printDateTime(calendar));
+        } else if (value instanceof Collection) {
+            writer.write('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeValue(writer, element);
+            }
+            writer.write(']');
+        } else {
+            writeString(writer, value.toString());
+        }
+    }
+
+    static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
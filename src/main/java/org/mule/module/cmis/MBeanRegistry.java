@@ -0,0 +1,98 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MBeans of the state shared by the connections of an application, named
+ * {@code org.mule.module.cmis:type=<type>,application=<application>,...}. They are registered in the platform
+ * MBean server while at least one connection is open and unregistered once the last one is closed, so that an
+ * undeployed application does not stay reachable from the server and a redeployed one publishes its own MBeans.
+ */
+final class MBeanRegistry {
+    private static final Logger logger = Logger.getLogger(MBeanRegistry.class);
+
+    static final String DEFAULT_APPLICATION = "default";
+
+    // Guarded by the class
+    private static final Map<String, Object> BEANS = new LinkedHashMap<String, Object>();
+    private static String application = DEFAULT_APPLICATION;
+    private static int connections;
+
+    private MBeanRegistry() {
+    }
+
+    /**
+     * Registers the MBeans when the first connection of the application is opened.
+     *
+     * @param applicationName the name of the application, the default one if blank
+     */
+    static synchronized void connected(String applicationName) {
+        if (connections++ == 0) {
+            application = StringUtils.isNotBlank(applicationName) ? applicationName : DEFAULT_APPLICATION;
+            for (Map.Entry<String, Object> bean : BEANS.entrySet()) {
+                register(bean.getKey(), bean.getValue());
+            }
+        }
+    }
+
+    /**
+     * Unregisters the MBeans when the last connection of the application is closed.
+     */
+    static synchronized void disconnected() {
+        if (connections == 0 || --connections > 0) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (String properties : BEANS.keySet()) {
+            try {
+                server.unregisterMBean(objectName(properties));
+            } catch (InstanceNotFoundException e) {
+                logger.debug("The MBean " + properties + " was not registered", e);
+            } catch (JMException e) {
+                logger.warn("Unable to unregister the MBean " + properties, e);
+            }
+        }
+    }
+
+    /**
+     * Publishes the given MBean, now if a connection is open or else once one is.
+     *
+     * @param properties the key properties of its name, starting with its type, without the application
+     */
+    static synchronized void add(String properties, Object bean) {
+        if (BEANS.put(properties, bean) == null && connections > 0) {
+            register(properties, bean);
+        }
+    }
+
+    static synchronized ObjectName objectName(String properties) throws JMException {
+        int type = properties.indexOf(',');
+        return new ObjectName(ConnectorMetrics.DOMAIN + ":" + (type < 0 ? properties : properties.substring(0, type)) +
+                ",application=" + ObjectName.quote(application) + (type < 0 ? "" : properties.substring(type)));
+    }
+
+    private static void register(String properties, Object bean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, objectName(properties));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.warn("Another application named " + application + " already registered the MBean " + properties, e);
+        } catch (JMException e) {
+            logger.warn("Unable to register the MBean " + properties, e);
+        }
+    }
+}
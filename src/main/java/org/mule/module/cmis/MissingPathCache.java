@@ -0,0 +1,126 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least recently used set of the repository paths known to hold no object, each remembered for a
+ * time to live. Objects created through the connector invalidate their path and its ancestors, changes made
+ * by other clients are seen once the entries expire. Caches are shared by all the connections to the same
+ * repository.
+ */
+public class MissingPathCache {
+
+    private static final ConcurrentMap<String, MissingPathCache> CACHES = new ConcurrentHashMap<String, MissingPathCache>();
+
+    private final LinkedHashMap<String, Long> expirations;
+    private final long ttlNanos;
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * @param maxEntries number of paths remembered
+     * @param ttl        milliseconds a path is remembered
+     */
+    public MissingPathCache(final int maxEntries, long ttl) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.expirations = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by the connections identified by the given key, creating it if needed.
+     */
+    public static MissingPathCache shared(String key, int maxEntries, long ttl) {
+        MissingPathCache cache = CACHES.get(key);
+        if (cache == null) {
+            MissingPathCache created = new MissingPathCache(maxEntries, ttl);
+            cache = CACHES.putIfAbsent(key, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return whether the path was recently found to hold no object
+     */
+    public boolean isMissing(String path) {
+        String key = normalize(path);
+        synchronized (expirations) {
+            Long expiration = expirations.get(key);
+            if (expiration == null) {
+                return false;
+            }
+            if (System.nanoTime() - expiration >= 0) {
+                expirations.remove(key);
+                return false;
+            }
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    public void putMissing(String path) {
+        synchronized (expirations) {
+            expirations.put(normalize(path), System.nanoTime() + ttlNanos);
+        }
+    }
+
+    /**
+     * Forgets the given path and its ancestors, which all exist once an object is created at the path.
+     */
+    public void invalidate(String path) {
+        String key = normalize(path);
+        synchronized (expirations) {
+            Iterator<String> iterator = expirations.keySet().iterator();
+            while (iterator.hasNext()) {
+                String missing = iterator.next();
+                if (key.equals(missing) || key.startsWith(missing.endsWith("/") ? missing : missing + "/")) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets every path, used when objects are created or moved to paths that are not known.
+     */
+    public void invalidateAll() {
+        synchronized (expirations) {
+            expirations.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public int size() {
+        synchronized (expirations) {
+            return expirations.size();
+        }
+    }
+
+    private static String normalize(String path) {
+        return path.length() > 1 ? StringUtils.removeEnd(path, "/") : path;
+    }
+}
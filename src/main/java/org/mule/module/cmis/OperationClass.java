@@ -0,0 +1,28 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * Kinds of calls to the repository that get their own read timeout.
+ */
+public enum OperationClass {
+    /**
+     * Reads and updates of single objects, types and repository information.
+     */
+    METADATA,
+    /**
+     * Queries, checked out documents and change logs.
+     */
+    QUERY,
+    /**
+     * Uploads, downloads and copies of document contents.
+     */
+    CONTENT,
+    /**
+     * Listing, deleting and copying folder trees.
+     */
+    TREE
+}
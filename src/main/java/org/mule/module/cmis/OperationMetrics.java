@@ -0,0 +1,230 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invocation count, latency histogram, errors and transferred bytes of a connector operation.
+ * The operation running on the current thread is tracked so contents can be metered where they are created.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+    private static final ThreadLocal<OperationMetrics> CURRENT = new ThreadLocal<OperationMetrics>();
+
+    private final String operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> errorsByType = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final LatencyHistogram httpRequests = new LatencyHistogram();
+    private final AtomicLong httpResponseBytes = new AtomicLong();
+    private final AtomicLong httpServerNanos = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Makes the given metrics the current ones of this thread.
+     *
+     * @return the previous metrics of this thread, to be restored with {@link #exit(OperationMetrics)}
+     */
+    static OperationMetrics enter(OperationMetrics metrics) {
+        OperationMetrics previous = CURRENT.get();
+        CURRENT.set(metrics);
+        return previous;
+    }
+
+    static void exit(OperationMetrics previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Counts the bytes read from the given content as uploaded by the operation running on this thread, if any.
+     */
+    static ContentStream meterUpload(ContentStream content) {
+        OperationMetrics metrics = CURRENT.get();
+        return metrics == null ? content : meter(content, metrics.bytesUploaded);
+    }
+
+    /**
+     * Counts the invocation running on this thread, if any, as served by a request already in flight.
+     */
+    static void recordCoalesced() {
+        OperationMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the bytes read from the given content as downloaded by this operation.
+     */
+    ContentStream meterDownload(ContentStream content) {
+        return meter(content, bytesDownloaded);
+    }
+
+    void addBytesDownloaded(long bytes) {
+        bytesDownloaded.addAndGet(bytes);
+    }
+
+    /**
+     * @param error the exception thrown by the invocation or null if it succeeded
+     */
+    void record(long nanos, Throwable error) {
+        latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        if (error != null) {
+            errors.incrementAndGet();
+            String type = error.getClass().getName();
+            AtomicLong counter = errorsByType.get(type);
+            if (counter == null) {
+                AtomicLong created = new AtomicLong();
+                counter = errorsByType.putIfAbsent(type, created);
+                if (counter == null) {
+                    counter = created;
+                }
+            }
+            counter.incrementAndGet();
+        }
+    }
+
+    void record(RoundTrips roundTrips) {
+        httpRequests.record(roundTrips.getRequests());
+        httpResponseBytes.addAndGet(roundTrips.getResponseBytes());
+        httpServerNanos.addAndGet(roundTrips.getServerNanos());
+    }
+
+    private static ContentStream meter(ContentStream content, AtomicLong counter) {
+        if (content == null || content.getStream() == null) {
+            return content;
+        }
+        return new ContentStreamImpl(content.getFileName(), content.getBigLength(), content.getMimeType(),
+                new MeteredInputStream(content.getStream(), counter));
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getInvocations() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> snapshot = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : errorsByType.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public double getMeanLatency() {
+        return latency.getMean() / 1000;
+    }
+
+    @Override
+    public double getLatency50thPercentile() {
+        return latency.getPercentile(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getLatency95thPercentile() {
+        return latency.getPercentile(0.95) / 1000.0;
+    }
+
+    @Override
+    public double getLatency99thPercentile() {
+        return latency.getPercentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxLatency() {
+        return latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    @Override
+    public long getHttpRequests() {
+        return httpRequests.getTotal();
+    }
+
+    @Override
+    public double getMeanHttpRequests() {
+        return httpRequests.getMean();
+    }
+
+    @Override
+    public long getMaxHttpRequests() {
+        return httpRequests.getMax();
+    }
+
+    @Override
+    public long getHttpResponseBytes() {
+        return httpResponseBytes.get();
+    }
+
+    @Override
+    public double getMeanHttpServerTime() {
+        long invocations = httpRequests.getCount();
+        return invocations == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(httpServerNanos.get()) / 1000.0 / invocations;
+    }
+
+    @Override
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Override
+    public double getCoalescingRatio() {
+        long invocations = latency.getCount();
+        return invocations == 0 ? 0 : (double) coalesced.get() / invocations;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.set(0);
+        errorsByType.clear();
+        bytesUploaded.set(0);
+        bytesDownloaded.set(0);
+        httpRequests.reset();
+        httpResponseBytes.set(0);
+        httpServerNanos.set(0);
+        coalesced.set(0);
+    }
+}
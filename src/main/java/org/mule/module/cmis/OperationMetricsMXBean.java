@@ -0,0 +1,74 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import java.util.Map;
+
+/**
+ * Metrics of a connector operation published through JMX. Latencies are in milliseconds.
+ */
+public interface OperationMetricsMXBean {
+
+    String getOperation();
+
+    long getInvocations();
+
+    long getErrors();
+
+    /**
+     * @return the number of failed invocations by exception class name
+     */
+    Map<String, Long> getErrorsByType();
+
+    double getMeanLatency();
+
+    double getLatency50thPercentile();
+
+    double getLatency95thPercentile();
+
+    double getLatency99thPercentile();
+
+    double getMaxLatency();
+
+    long getBytesUploaded();
+
+    long getBytesDownloaded();
+
+    /**
+     * @return the number of HTTP requests sent to the repository by all the invocations, including those sent
+     * by the worker threads of parallel downloads, tree copies, query exports and type preloads. Requests sent
+     * outside of an invocation, such as the session warm-up of asynchronously connected configurations, or after
+     * it returned, such as the pages read while a JSON payload is written, are not counted
+     */
+    long getHttpRequests();
+
+    double getMeanHttpRequests();
+
+    long getMaxHttpRequests();
+
+    /**
+     * @return the sum of the declared lengths of the HTTP responses
+     */
+    long getHttpResponseBytes();
+
+    /**
+     * @return the mean time per invocation spent waiting for the repository to answer HTTP requests, the time of
+     * concurrent requests adds up
+     */
+    double getMeanHttpServerTime();
+
+    /**
+     * @return the number of invocations that shared the request of an identical invocation already in flight
+     */
+    long getCoalesced();
+
+    /**
+     * @return the share of the invocations that were coalesced, between 0 and 1
+     */
+    double getCoalescingRatio();
+
+    void reset();
+}
@@ -0,0 +1,248 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Downloads the content of a {@link Document} into a local file by splitting it in byte ranges
+ * that are fetched concurrently and written in place through positional {@link FileChannel} writes.
+ */
+class ParallelContentDownloader {
+    private static final Logger logger = Logger.getLogger(ParallelContentDownloader.class);
+
+    /**
+     * Ranges smaller than this are not worth an extra request.
+     */
+    static final long MIN_RANGE_SIZE = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Session session;
+
+    ParallelContentDownloader(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Downloads the document content into the target file.
+     *
+     * @param document          the document to download
+     * @param target            the file to write, it is created or truncated
+     * @param ranges            the maximum number of ranges to fetch concurrently
+     * @param checksumAlgorithm the {@link MessageDigest} algorithm used to verify the file
+     * @param checksum          the expected hex encoded checksum or {@code null} to skip the verification
+     * @return the target file
+     */
+    File download(Document document, File target, int ranges, String checksumAlgorithm, String checksum) {
+        long length = document.getContentStreamLength();
+        int rangeCount = rangeCount(length, ranges);
+
+        try {
+            RandomAccessFile file = new RandomAccessFile(target, "rw");
+            try {
+                FileChannel channel = file.getChannel();
+                if (length >= 0) {
+                    file.setLength(length);
+                }
+
+                long written;
+                if (rangeCount > 1) {
+                    written = downloadRanges(document, channel, length, rangeCount);
+                } else {
+                    written = transfer(session.getContentStream(document, null, null, null), channel, 0, -1, null);
+                }
+                verifySize(document, length, written, channel.size());
+                if (StringUtils.isNotBlank(checksum)) {
+                    verifyChecksum(channel, checksumAlgorithm, checksum);
+                }
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            deleteQuietly(target);
+            throw new CMISConnectorException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+
+        logger.debug("Downloaded " + length + " bytes of document \"" + document.getId() + "\" into \"" +
+                target.getAbsolutePath() + "\" using " + rangeCount + " range(s).");
+        return target;
+    }
+
+    static int rangeCount(long length, int ranges) {
+        if (length <= 0) {
+            return 1;
+        }
+        long maxRanges = (length + MIN_RANGE_SIZE - 1) / MIN_RANGE_SIZE;
+        return (int) Math.max(1, Math.min(ranges, maxRanges));
+    }
+
+    private long downloadRanges(final Document document, final FileChannel channel,
+                                final long length, int rangeCount) throws IOException {
+        long rangeSize = (length + rangeCount - 1) / rangeCount;
+        final AtomicBoolean aborted = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(rangeCount);
+        List<Future<Long>> futures = new ArrayList<Future<Long>>(rangeCount);
+
+        try {
+            for (long offset = 0; offset < length; offset += rangeSize) {
+                final long position = offset;
+                final long size = Math.min(rangeSize, length - offset);
+                futures.add(executor.submit(RoundTrips.propagate(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        ContentStream stream = session.getContentStream(document, null,
+                                BigInteger.valueOf(position), BigInteger.valueOf(size));
+                        // A range of unknown length cannot be told apart from the whole content written at the
+                        // wrong offset, so it is handled as an ignored range as well
+                        if (stream.getBigLength() == null || stream.getBigLength().longValue() != size) {
+                            IOUtils.closeQuietly(stream.getStream());
+                            throw new RangeNotSupportedException();
+                        }
+                        return transfer(stream, channel, position, size, aborted);
+                    }
+                })));
+            }
+
+            long written = 0;
+            for (Future<Long> future : futures) {
+                written += future.get();
+            }
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CMISConnectorException(e);
+        } catch (ExecutionException e) {
+            // Stop the remaining ranges without interrupting them, an interrupt would close the shared channel
+            aborted.set(true);
+            awaitQuietly(futures);
+
+            Throwable cause = e.getCause();
+            if (cause instanceof RangeNotSupportedException) {
+                logger.debug("The repository ignored the requested range, falling back to a single stream download.");
+                return transfer(session.getContentStream(document, null, null, null), channel, 0, -1, null);
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CMISConnectorException(cause);
+        } finally {
+            aborted.set(true);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Copies the stream into the channel starting at the given position.
+     *
+     * @param size    the number of bytes expected or -1 to read until the end of the stream
+     * @param aborted flag checked between writes to stop early, can be null
+     * @return the number of bytes written
+     */
+    private static long transfer(ContentStream stream, FileChannel channel, long position, long size,
+                                 AtomicBoolean aborted) throws IOException {
+        InputStream in = stream.getStream();
+        try {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long written = 0;
+            int read;
+            while ((size < 0 || written < size) && (aborted == null || !aborted.get()) &&
+                    (read = in.read(bytes, 0, (int) (size < 0 ? bytes.length : Math.min(bytes.length, size - written)))) != -1) {
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer, position + written);
+                }
+            }
+            if (size >= 0 && written != size && (aborted == null || !aborted.get())) {
+                throw new CMISConnectorException("Expected " + size + " bytes at offset " + position +
+                        " but the stream ended after " + written + " bytes.");
+            }
+            return written;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static void verifySize(Document document, long expected, long written, long fileSize) {
+        if (expected >= 0 && (written != expected || fileSize != expected)) {
+            throw new CMISConnectorException("The download of document \"" + document.getId() + "\" is incomplete: expected " +
+                    expected + " bytes, received " + written + " bytes and the file holds " + fileSize + " bytes.");
+        }
+    }
+
+    private static void verifyChecksum(FileChannel channel, String algorithm, String expected) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm, e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+            position += read;
+        }
+
+        String actual = SpooledContent.toHex(digest.digest());
+        if (!actual.equalsIgnoreCase(expected.trim())) {
+            throw new CMISConnectorException("The " + algorithm + " checksum of the downloaded content is " + actual +
+                    " but " + expected + " was expected.");
+        }
+    }
+
+    private static void awaitQuietly(List<Future<Long>> futures) {
+        for (Future<Long> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.debug("Range download failed after the download was aborted.", e.getCause());
+            }
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.warn("Unable to delete the incomplete download \"" + file.getAbsolutePath() + "\".");
+        }
+    }
+
+    private static class RangeNotSupportedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ObjectType;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+
+import javax.xml.bind.DatatypeConverter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Converts the properties received by the connector into the values OpenCMIS expects for the property
+ * definitions of a type. Values that are not strings are kept as they are. Strings given for boolean, integer,
+ * decimal and date time properties are parsed, the latter as ISO 8601. Keys prefixed with {@code M:} hold
+ * comma separated values of a multi-valued property. Converters are compiled once per type definition.
+ */
+class PropertyConverter {
+
+    private static final Map<PropertyType, Converter> CONVERTERS = new EnumMap<PropertyType, Converter>(PropertyType.class);
+
+    static {
+        CONVERTERS.put(PropertyType.BOOLEAN, new Converter() {
+            @Override
+            public Object convert(String value) {
+                // Unlike Boolean.valueOf, anything else than true or false is rejected instead of read as false
+                String trimmed = value.trim();
+                if ("true".equalsIgnoreCase(trimmed)) {
+                    return Boolean.TRUE;
+                } else if ("false".equalsIgnoreCase(trimmed)) {
+                    return Boolean.FALSE;
+                }
+                throw new IllegalArgumentException("\"" + value + "\" is neither true nor false");
+            }
+        });
+        CONVERTERS.put(PropertyType.INTEGER, new Converter() {
+            @Override
+            public Object convert(String value) {
+                return new BigInteger(value.trim());
+            }
+        });
+        CONVERTERS.put(PropertyType.DECIMAL, new Converter() {
+            @Override
+            public Object convert(String value) {
+                return new BigDecimal(value.trim());
+            }
+        });
+        CONVERTERS.put(PropertyType.DATETIME, new Converter() {
+            @Override
+            public Object convert(String value) {
+                return toGregorianCalendar(DatatypeConverter.parseDateTime(value.trim()));
+            }
+        });
+    }
+
+    /**
+     * Converter of the properties of no known type: strings are sent as they are.
+     */
+    static final PropertyConverter UNTYPED = new PropertyConverter(Collections.<String, Converter>emptyMap());
+
+    private final Map<String, Converter> converters;
+
+    private PropertyConverter(Map<String, Converter> converters) {
+        this.converters = converters;
+    }
+
+    /**
+     * Compiles the converters of the properties of the given type.
+     */
+    static PropertyConverter compile(ObjectType type) {
+        Map<String, PropertyDefinition<?>> definitions = type.getPropertyDefinitions();
+        if (definitions == null || definitions.isEmpty()) {
+            return UNTYPED;
+        }
+        Map<String, Converter> converters = new HashMap<String, Converter>();
+        for (PropertyDefinition<?> definition : definitions.values()) {
+            Converter converter = CONVERTERS.get(definition.getPropertyType());
+            if (converter != null) {
+                converters.put(definition.getId(), converter);
+            }
+        }
+        return new PropertyConverter(converters);
+    }
+
+    /**
+     * @param properties the properties to convert, can be null
+     * @return a new map with the converted properties or null if none were given
+     */
+    Map<String, Object> convert(Map<String, ?> properties) {
+        if (properties == null) {
+            return null;
+        }
+
+        Map<String, Object> converted = new HashMap<String, Object>((int) (properties.size() / 0.75f) + 1);
+        for (Map.Entry<String, ?> entry : properties.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            // Don't waste our time with empty properties.
+            if (value == null) {
+                continue;
+            }
+
+            boolean multiValued = isMultiValued(key);
+            String id = multiValued ? key.substring(2) : key;
+            try {
+                if (multiValued) {
+                    converted.put(id, convertAll(converters.get(id), value instanceof String ? split((String) value) : value));
+                } else {
+                    converted.put(key, convert(converters.get(key), value));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid value for property " + id + ": " + e.getMessage(), e);
+            }
+        }
+        return converted;
+    }
+
+    private static boolean isMultiValued(String key) {
+        return key.length() > 2 && key.charAt(1) == ':' && (key.charAt(0) == 'M' || key.charAt(0) == 'm');
+    }
+
+    private static Object convertAll(Converter converter, Object values) {
+        if (!(values instanceof Collection)) {
+            return convert(converter, values);
+        }
+        Collection<?> collection = (Collection<?>) values;
+        List<Object> converted = new ArrayList<Object>(collection.size());
+        for (Object value : collection) {
+            converted.add(convert(converter, value));
+        }
+        return converted;
+    }
+
+    private static Object convert(Converter converter, Object value) {
+        if (value instanceof String) {
+            return converter != null ? converter.convert((String) value) : value;
+        } else if (value instanceof Date) {
+            GregorianCalendar calendar = new GregorianCalendar();
+            calendar.setTime((Date) value);
+            return calendar;
+        } else if (value instanceof Calendar) {
+            return toGregorianCalendar((Calendar) value);
+        } else if (value instanceof Collection) {
+            return convertAll(converter, value);
+        }
+        return value;
+    }
+
+    private static GregorianCalendar toGregorianCalendar(Calendar calendar) {
+        if (calendar instanceof GregorianCalendar) {
+            return (GregorianCalendar) calendar;
+        }
+        GregorianCalendar gregorian = new GregorianCalendar(calendar.getTimeZone());
+        gregorian.setTimeInMillis(calendar.getTimeInMillis());
+        return gregorian;
+    }
+
+    /**
+     * Splits on commas without the regular expression machinery of {@link String#split(String)}.
+     */
+    static List<String> split(String values) {
+        List<String> split = new ArrayList<String>();
+        int start = 0;
+        int comma;
+        while ((comma = values.indexOf(',', start)) != -1) {
+            split.add(values.substring(start, comma));
+            start = comma + 1;
+        }
+        split.add(values.substring(start));
+        return split;
+    }
+
+    private interface Converter {
+        Object convert(String value);
+    }
+}
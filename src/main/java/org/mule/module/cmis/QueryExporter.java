@@ -0,0 +1,244 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes query results into a local file page by page. The next page is fetched in the background while the
+ * current one is written, so only two pages are held in memory at any time.
+ */
+class QueryExporter {
+    private static final Logger logger = Logger.getLogger(QueryExporter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cmis-export-prefetch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final ExportFormat format;
+    private final List<String> columns;
+    private final Set<String> filter;
+
+    /**
+     * @param format  the format of the file
+     * @param columns comma separated ids of the properties to write, in order. When blank every
+     *                property is written and the CSV header is taken from the first result
+     */
+    QueryExporter(ExportFormat format, String columns) {
+        this.format = format;
+        this.columns = parseColumns(columns);
+        this.filter = this.columns != null ? new HashSet<String>(this.columns) : null;
+    }
+
+    /**
+     * Exports the query results into the target file.
+     *
+     * @param results the query results, their pages are fetched with the page size of their operation context
+     * @param target  the file to write, it is created or truncated
+     * @return the target file
+     */
+    File export(ItemIterable<QueryResult> results, File target) {
+        long rows = 0;
+        Future<Page> next = null;
+        try {
+            FileOutputStream out = new FileOutputStream(target);
+            try {
+                FileChannel channel = out.getChannel();
+                Writer writer = new BufferedWriter(Channels.newWriter(channel, "UTF-8"), BUFFER_SIZE);
+                List<String> header = columns;
+                if (header != null && format == ExportFormat.CSV) {
+                    writeCsvRow(writer, header);
+                }
+
+                Page page = fetch(results, 0);
+                while (true) {
+                    next = page.hasMoreItems ? prefetch(results, rows + page.items.size()) : null;
+                    for (QueryResult result : page.items) {
+                        Map<String, Object> properties = DetachedObject.detachOne(result, filter).getProperties();
+                        if (header == null) {
+                            header = new ArrayList<String>(properties.keySet());
+                            if (format == ExportFormat.CSV) {
+                                writeCsvRow(writer, header);
+                            }
+                        }
+                        writeRow(writer, header, properties);
+                    }
+                    rows += page.items.size();
+                    if (next == null) {
+                        break;
+                    }
+                    page = get(next);
+                    next = null;
+                }
+                writer.flush();
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            cancel(next);
+            deleteQuietly(target);
+            throw new CMISConnectorException(e);
+        } catch (RuntimeException e) {
+            cancel(next);
+            deleteQuietly(target);
+            throw e;
+        }
+
+        logger.debug("Exported " + rows + " query result(s) into \"" + target.getAbsolutePath() + "\".");
+        return target;
+    }
+
+    private Future<Page> prefetch(final ItemIterable<QueryResult> results, final long skip) {
+        return PREFETCH.submit(RoundTrips.propagate(new Callable<Page>() {
+            @Override
+            public Page call() {
+                return fetch(results, skip);
+            }
+        }));
+    }
+
+    private static Page fetch(ItemIterable<QueryResult> results, long skip) {
+        ItemIterable<QueryResult> page = results.skipTo(skip).getPage();
+        List<QueryResult> items = new ArrayList<QueryResult>();
+        for (QueryResult result : page) {
+            items.add(result);
+        }
+        // An empty page that claims more items would never end the export
+        return new Page(items, !items.isEmpty() && page.getHasMoreItems());
+    }
+
+    private void writeRow(Writer writer, List<String> header, Map<String, Object> properties) throws IOException {
+        if (format == ExportFormat.CSV) {
+            List<Object> values = new ArrayList<Object>(header.size());
+            for (String column : header) {
+                values.add(properties.get(column));
+            }
+            writeCsvRow(writer, values);
+        } else {
+            writer.write('{');
+            for (int i = 0; i < header.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                JsonOutputHandler.writeString(writer, header.get(i));
+                writer.write(':');
+                JsonOutputHandler.writeValue(writer, properties.get(header.get(i)));
+            }
+            writer.write("}\n");
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, csvValue(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        } else if (value instanceof Calendar) {
+            return DatatypeConverter.printDateTime((Calendar) value);
+        } else if (value instanceof Collection) {
+            StringBuilder joined = new StringBuilder();
+            for (Object element : (Collection<?>) value) {
+                if (joined.length() > 0) {
+                    joined.append(';');
+                }
+                joined.append(csvValue(element));
+            }
+            return joined.toString();
+        }
+        return value.toString();
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (StringUtils.containsNone(value, ",\"\r\n")) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static List<String> parseColumns(String columns) {
+        if (StringUtils.isBlank(columns)) {
+            return null;
+        }
+        List<String> parsed = new ArrayList<String>();
+        for (String column : StringUtils.split(columns, ',')) {
+            if (StringUtils.isNotBlank(column)) {
+                parsed.add(column.trim());
+            }
+        }
+        return parsed;
+    }
+
+    private static Page get(Future<Page> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CMISConnectorException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CMISConnectorException(cause);
+        }
+    }
+
+    private static void cancel(Future<Page> page) {
+        if (page != null) {
+            page.cancel(true);
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.warn("Unable to delete the incomplete export \"" + file.getAbsolutePath() + "\".");
+        }
+    }
+
+    private static class Page {
+        private final List<QueryResult> items;
+        private final boolean hasMoreItems;
+
+        Page(List<QueryResult> items, boolean hasMoreItems) {
+            this.items = items;
+            this.hasMoreItems = hasMoreItems;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.*;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.Updatability;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Copies documents and folder trees inside the repository using createDocumentFromSource, so the content
+ * never leaves the repository. Falls back to downloading and uploading the content when the binding does
+ * not support it (AtomPub), in which case the copies get the same properties from their source.
+ */
+class RepositoryCopier {
+    private static final Logger logger = Logger.getLogger(RepositoryCopier.class);
+
+    private volatile boolean serverSideCopyUnsupported;
+
+    /**
+     * Copies a document into the given folder.
+     *
+     * @param properties properties of the copy that differ from the source, can be null
+     * @param versioningState versioning state of the copy, null for the repository default
+     * @return the id of the copy
+     */
+    ObjectId copy(Session session, Document source, Map<String, ?> properties,
+                  ObjectId folderId, VersioningState versioningState) {
+        if (!serverSideCopyUnsupported) {
+            try {
+                return session.createDocumentFromSource(source, properties, folderId, versioningState);
+            } catch (CmisNotSupportedException e) {
+                logger.debug("The repository binding does not support createDocumentFromSource, " +
+                        "documents will be copied through the connector.", e);
+                serverSideCopyUnsupported = true;
+            }
+        }
+
+        // Like createDocumentFromSource, the copy gets every property of the source that can be set on creation
+        Map<String, Object> copyProperties = new HashMap<String, Object>();
+        for (Property<?> property : source.getProperties()) {
+            Updatability updatability = property.getDefinition() != null ? property.getDefinition().getUpdatability() : null;
+            if (updatability == Updatability.READWRITE || updatability == Updatability.ONCREATE) {
+                copyProperties.put(property.getId(), property.isMultiValued() ? property.getValues() : property.getFirstValue());
+            }
+        }
+        copyProperties.put(PropertyIds.OBJECT_TYPE_ID, source.getType().getId());
+        copyProperties.put(PropertyIds.NAME, source.getName());
+        if (properties != null) {
+            copyProperties.putAll(properties);
+        }
+        // A retry downloads the content again, so unlike payload streams it does not need to be spooled
+        return session.createDocument(copyProperties, folderId,
+                OperationMetrics.meterUpload(source.getContentStream()), versioningState);
+    }
+
+    /**
+     * Copies a folder, its sub folders and documents into the given folder. Each folder is listed and
+     * each document is copied as a separate task, up to the given number of tasks at a time.
+     *
+     * @return the id of the copy of the source folder
+     */
+    ObjectId copyTree(Session session, Folder source, ObjectId targetFolderId, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new CopyFolderTask(session, source, targetFolderId));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Task whose requests are counted with those of the operation that created it, whichever pool thread runs it.
+     */
+    private abstract static class CountedTask<V> extends RecursiveTask<V> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RoundTrips roundTrips = RoundTrips.current();
+
+        @Override
+        protected final V compute() {
+            RoundTrips previous = RoundTrips.begin(roundTrips);
+            try {
+                return run();
+            } finally {
+                RoundTrips.end(previous);
+            }
+        }
+
+        protected abstract V run();
+    }
+
+    private class CopyFolderTask extends CountedTask<ObjectId> {
+        private static final long serialVersionUID = 1L;
+
+        private final Session session;
+        private final Folder source;
+        private final ObjectId targetFolderId;
+
+        private CopyFolderTask(Session session, Folder source, ObjectId targetFolderId) {
+            this.session = session;
+            this.source = source;
+            this.targetFolderId = targetFolderId;
+        }
+
+        @Override
+        protected ObjectId run() {
+            Map<String, Object> properties = new HashMap<String, Object>();
+            properties.put(PropertyIds.OBJECT_TYPE_ID, source.getType().getId());
+            properties.put(PropertyIds.NAME, source.getName());
+            ObjectId folderId = session.createFolder(properties, targetFolderId);
+
+            List<RecursiveTask<ObjectId>> tasks = new ArrayList<RecursiveTask<ObjectId>>();
+            for (CmisObject child : source.getChildren()) {
+                if (child instanceof Folder) {
+                    tasks.add(new CopyFolderTask(session, (Folder) child, folderId));
+                } else if (child instanceof Document) {
+                    tasks.add(new CopyDocumentTask(session, (Document) child, folderId));
+                } else {
+                    logger.debug("Skipping the copy of \"" + child.getName() + "\", only folders and documents are copied.");
+                }
+            }
+            invokeAll(tasks);
+            return folderId;
+        }
+    }
+
+    private class CopyDocumentTask extends CountedTask<ObjectId> {
+        private static final long serialVersionUID = 1L;
+
+        private final Session session;
+        private final Document source;
+        private final ObjectId targetFolderId;
+
+        private CopyDocumentTask(Session session, Document source, ObjectId targetFolderId) {
+            this.session = session;
+            this.source = source;
+            this.targetFolderId = targetFolderId;
+        }
+
+        @Override
+        protected ObjectId run() {
+            return copy(session, source, null, targetFolderId, null);
+        }
+    }
+}
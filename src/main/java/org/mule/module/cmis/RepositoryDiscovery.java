@@ -0,0 +1,143 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.Repository;
+import org.apache.chemistry.opencmis.client.api.SessionFactory;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.log4j.Logger;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide cache of the repositories listed by CMIS servers, keyed by binding, URL and credentials.
+ * Entries are served until they are older than the time to live. Entries past half of it are refreshed
+ * in the background, so that connections created regularly never wait for the discovery.
+ */
+class RepositoryDiscovery {
+    private static final Logger logger = Logger.getLogger(RepositoryDiscovery.class);
+
+    /**
+     * Milliseconds the repositories of a server are cached by default.
+     */
+    static final long DEFAULT_TTL = 5 * 60 * 1000;
+
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<String, Entry>();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cmis-repository-discovery-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private RepositoryDiscovery() {
+
+    }
+
+    /**
+     * Lists the repositories of the server the parameters point to.
+     *
+     * @param baseURL the URL of the server, part of the cache key
+     * @param ttl     milliseconds the list may be served from the cache, 0 to always ask the server
+     */
+    static List<Repository> getRepositories(SessionFactory factory, Map<String, String> parameters,
+                                            String baseURL, long ttl) {
+        if (ttl <= 0) {
+            return factory.getRepositories(parameters);
+        }
+
+        String key = key(parameters, baseURL);
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        Entry entry = ENTRIES.get(key);
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                if (age >= ttlNanos / 2 && entry.refreshing.compareAndSet(false, true)) {
+                    refresh(factory, new HashMap<String, String>(parameters), key, entry);
+                }
+                return entry.repositories;
+            }
+        }
+
+        Entry loaded = load(factory, parameters);
+        ENTRIES.put(key, loaded);
+        return loaded.repositories;
+    }
+
+    /**
+     * Drops every cached list, the next lookups ask the servers again.
+     */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    private static void refresh(final SessionFactory factory, final Map<String, String> parameters,
+                                final String key, final Entry stale) {
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ENTRIES.replace(key, stale, load(factory, parameters));
+                    logger.debug("Refreshed the repositories of " + parameters.get(SessionParameter.USER) + ".");
+                } catch (RuntimeException e) {
+                    // Keep serving the current list, the next lookup tries again
+                    stale.refreshing.set(false);
+                    logger.warn("Unable to refresh the repositories of " + parameters.get(SessionParameter.USER) + ".", e);
+                }
+            }
+        });
+    }
+
+    private static Entry load(SessionFactory factory, Map<String, String> parameters) {
+        List<Repository> repositories = factory.getRepositories(parameters);
+        return new Entry(Collections.unmodifiableList(repositories), System.nanoTime());
+    }
+
+    private static String key(Map<String, String> parameters, String baseURL) {
+        return parameters.get(SessionParameter.BINDING_TYPE) + '\n' + baseURL + '\n' +
+                parameters.get(SessionParameter.USER) + '\n' + hash(parameters.get(SessionParameter.PASSWORD));
+    }
+
+    /**
+     * Credentials are part of the key so that a wrong password is never served the list of a right one,
+     * only their hash is kept.
+     */
+    private static String hash(String password) {
+        if (password == null) {
+            return "";
+        }
+        MessageDigest digest = SpooledContent.newDigest();
+        try {
+            return SpooledContent.toHex(digest.digest(password.getBytes("UTF-8")));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        private final List<Repository> repositories;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(List<Repository> repositories, long loadedAt) {
+            this.repositories = repositories;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
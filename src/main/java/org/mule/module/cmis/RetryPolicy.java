@@ -0,0 +1,68 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.mule.module.cmis.exception.CMISConnectorConnectionException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries idempotent operations that failed because the repository could not be reached, waiting an
+ * exponentially growing, randomized delay between attempts so that retries of many threads do not line up.
+ */
+public class RetryPolicy {
+    private final int maxRetries;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    /**
+     * @param maxRetries     number of attempts after the first one
+     * @param initialBackoff maximum delay in milliseconds before the first retry, doubled for each retry
+     * @param maxBackoff     maximum delay in milliseconds before any retry
+     */
+    public RetryPolicy(int maxRetries, long initialBackoff, long maxBackoff) {
+        this.maxRetries = maxRetries;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * @param attempt the number of the attempt that failed, starting at 0
+     */
+    boolean shouldRetry(FacadeOperation operation, RuntimeException failure, int attempt) {
+        return attempt < maxRetries && operation.isIdempotent() && isTransient(failure);
+    }
+
+    /**
+     * @return a random delay between 0 and the exponential backoff of the given attempt
+     */
+    long backoff(int attempt) {
+        long ceiling = initialBackoff << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > maxBackoff) {
+            ceiling = maxBackoff;
+        }
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * @return whether the failure means the repository could not be reached, rather than a refused request.
+     * Sessions are created by the first operation that needs one, so failing to create it because the repository
+     * could not be reached counts as well, unlike failing because of the configuration
+     */
+    static boolean isTransient(RuntimeException failure) {
+        if (failure instanceof CmisConnectionException) {
+            return true;
+        } else if (failure instanceof CMISConnectorConnectionException) {
+            for (Throwable cause = failure.getCause(); cause != null && cause != cause.getCause(); cause = cause.getCause()) {
+                if (cause instanceof CmisConnectionException) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
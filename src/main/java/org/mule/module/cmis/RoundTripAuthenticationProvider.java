@@ -0,0 +1,54 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.StandardAuthenticationProvider;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Standard authentication that also counts the HTTP requests, response bytes and server time
+ * of the connector operation running on the current thread, see {@link RoundTrips}.
+ */
+public class RoundTripAuthenticationProvider extends StandardAuthenticationProvider {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Map<String, List<String>> getHTTPHeaders(String url) {
+        RoundTrips roundTrips = RoundTrips.current();
+        if (roundTrips != null) {
+            roundTrips.requestSent();
+        }
+        return super.getHTTPHeaders(url);
+    }
+
+    @Override
+    public void putResponseHeaders(String url, int statusCode, Map<String, List<String>> headers) {
+        RoundTrips roundTrips = RoundTrips.current();
+        if (roundTrips != null) {
+            roundTrips.responseReceived(contentLength(headers));
+        }
+        super.putResponseHeaders(url, statusCode, headers);
+    }
+
+    private static long contentLength(Map<String, List<String>> headers) {
+        if (headers == null) {
+            return -1;
+        }
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if ("Content-Length".equalsIgnoreCase(header.getKey()) && header.getValue() != null &&
+                    !header.getValue().isEmpty()) {
+                try {
+                    return Long.parseLong(header.getValue().get(0).trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+}
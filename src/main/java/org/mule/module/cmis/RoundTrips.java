@@ -0,0 +1,109 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP requests sent to the repository while a connector operation runs on the current thread, or on the
+ * worker threads it hands its requests to through {@link #propagate(Callable)}.
+ * Filled by {@link RoundTripAuthenticationProvider}, which sees every request and response of the bindings.
+ * Requests sent after the operation returned, such as the pages read while a streamed payload is consumed,
+ * are not counted.
+ */
+class RoundTrips {
+    private static final ThreadLocal<RoundTrips> CURRENT = new ThreadLocal<RoundTrips>();
+    // A thread waits for the response of its request before sending the next one
+    private static final ThreadLocal<Long> PENDING_START = new ThreadLocal<Long>();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong serverNanos = new AtomicLong();
+
+    /**
+     * Starts counting the requests of this thread.
+     *
+     * @return the round trips counted so far by an enclosing operation, to be restored with {@link #end(RoundTrips)}
+     */
+    static RoundTrips begin(RoundTrips roundTrips) {
+        RoundTrips previous = CURRENT.get();
+        CURRENT.set(roundTrips);
+        return previous;
+    }
+
+    static void end(RoundTrips previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static RoundTrips current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps a task submitted to another thread so its requests are counted with those of the operation
+     * running on this thread, if any.
+     */
+    static <V> Callable<V> propagate(final Callable<V> task) {
+        final RoundTrips roundTrips = CURRENT.get();
+        if (roundTrips == null) {
+            return task;
+        }
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                RoundTrips previous = begin(roundTrips);
+                try {
+                    return task.call();
+                } finally {
+                    end(previous);
+                }
+            }
+        };
+    }
+
+    void requestSent() {
+        requests.incrementAndGet();
+        PENDING_START.set(System.nanoTime());
+    }
+
+    /**
+     * @param contentLength the length of the response body or -1 if it is unknown
+     */
+    void responseReceived(long contentLength) {
+        Long pendingStart = PENDING_START.get();
+        if (pendingStart != null) {
+            serverNanos.addAndGet(System.nanoTime() - pendingStart);
+            PENDING_START.remove();
+        }
+        if (contentLength > 0) {
+            responseBytes.addAndGet(contentLength);
+        }
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the sum of the declared lengths of the responses, chunked responses are not included
+     */
+    long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * @return the time spent between sending the requests and receiving the response headers
+     */
+    long getServerNanos() {
+        return serverNanos.get();
+    }
+}
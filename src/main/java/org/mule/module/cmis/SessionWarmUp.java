@@ -0,0 +1,54 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bootstraps the sessions of asynchronously connected facades in the background. Operations invoked
+ * before the bootstrap completes wait for the session being created instead of creating their own.
+ */
+class SessionWarmUp {
+    private static final Logger logger = Logger.getLogger(SessionWarmUp.class);
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cmis-session-warm-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private SessionWarmUp() {
+
+    }
+
+    /**
+     * Creates the session of the facade and authenticates in the background.
+     */
+    static void start(final CMISFacade facade, final String connectionIdentifier) {
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    facade.repositoryInfo();
+                    logger.debug("The session of " + connectionIdentifier + " is ready.");
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to bootstrap the session of " + connectionIdentifier +
+                            ", the first operation will try again.", e);
+                }
+            }
+        });
+    }
+}
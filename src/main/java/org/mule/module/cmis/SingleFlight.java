@@ -0,0 +1,79 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical calls: the first caller for a key runs the call, callers arriving while it is
+ * in flight wait for it and share its result or exception, the very same instance rather than a copy. Nothing is
+ * kept once the call completes. Single flights are shared by all the connections to the same repository.
+ */
+class SingleFlight<V> {
+
+    private static final ConcurrentMap<String, SingleFlight<?>> FLIGHTS = new ConcurrentHashMap<String, SingleFlight<?>>();
+
+    private final ConcurrentMap<String, FutureTask<V>> inFlight = new ConcurrentHashMap<String, FutureTask<V>>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Returns the single flight of the given repository, creating it if needed. All the callers of a key must
+     * expect the same type of result.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> SingleFlight<V> shared(String key) {
+        SingleFlight<?> flight = FLIGHTS.get(key);
+        if (flight == null) {
+            SingleFlight<V> created = new SingleFlight<V>();
+            flight = FLIGHTS.putIfAbsent(key, created);
+            if (flight == null) {
+                flight = created;
+            }
+        }
+        return (SingleFlight<V>) flight;
+    }
+
+    V execute(String key, Callable<V> call) {
+        FutureTask<V> task = new FutureTask<V>(call);
+        FutureTask<V> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            return get(task);
+        }
+
+        coalesced.incrementAndGet();
+        OperationMetrics.recordCoalesced();
+        return get(running);
+    }
+
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static <V> V get(FutureTask<V> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CMISConnectorException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CMISConnectorException(cause);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Repeatable copy of a stream. Content up to a threshold is kept in memory, bigger content
+ * is spilled to a temporary file. Optionally computes the SHA-256 hash of the content while copying it.
+ */
+class SpooledContent {
+    private static final Logger logger = Logger.getLogger(SpooledContent.class);
+
+    static final String ALGORITHM = "SHA-256";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final byte[] bytes;
+    private final File file;
+    private final long length;
+    private final String hash;
+
+    private SpooledContent(byte[] bytes, File file, long length, String hash) {
+        this.bytes = bytes;
+        this.file = file;
+        this.length = length;
+        this.hash = hash;
+    }
+
+    /**
+     * Reads the stream until its end and closes it.
+     *
+     * @param memoryThreshold number of bytes kept in memory before spilling to a temporary file
+     * @param digest          whether to compute the SHA-256 hash of the content
+     */
+    static SpooledContent spool(InputStream content, int memoryThreshold, boolean digest) {
+        MessageDigest messageDigest = digest ? newDigest() : null;
+        InputStream in = digest ? new DigestInputStream(content, messageDigest) : content;
+        File file = null;
+        OutputStream out = null;
+        try {
+            ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(memoryThreshold, BUFFER_SIZE));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long length = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (out == null && length + read > memoryThreshold) {
+                    file = File.createTempFile("cmis-upload", ".tmp");
+                    out = new BufferedOutputStream(new FileOutputStream(file));
+                    memory.writeTo(out);
+                    memory = null;
+                }
+                (out != null ? out : memory).write(buffer, 0, read);
+                length += read;
+            }
+
+            String hash = digest ? toHex(messageDigest.digest()) : null;
+            if (out != null) {
+                out.close();
+                logger.debug("Spooled " + length + " bytes into \"" + file.getAbsolutePath() + "\".");
+                return new SpooledContent(null, file, length, hash);
+            }
+            return new SpooledContent(memory.toByteArray(), null, length, hash);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(out);
+            if (file != null) {
+                deleteQuietly(file);
+            }
+            throw new CMISConnectorException(e);
+        } finally {
+            IOUtils.closeQuietly(content);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Opens a new stream over the content, it can be called any number of times.
+     */
+    InputStream openStream() {
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        try {
+            return new BufferedInputStream(new FileInputStream(file));
+        } catch (FileNotFoundException e) {
+            throw new CMISConnectorException(e);
+        }
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 hash of the content or null if it was not computed
+     */
+    String getHash() {
+        return hash;
+    }
+
+    /**
+     * Deletes the temporary file, if any.
+     */
+    void dispose() {
+        if (file != null) {
+            deleteQuietly(file);
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.warn("Unable to delete the temporary file \"" + file.getAbsolutePath() + "\".");
+        }
+    }
+}
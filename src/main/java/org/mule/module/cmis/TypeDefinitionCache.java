@@ -0,0 +1,174 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ObjectType;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.api.Tree;
+import org.apache.log4j.Logger;
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the type definitions of a repository, so that resolving the type of the objects being created
+ * or updated does not call the repository. Definitions are kept until they are invalidated, either through
+ * {@link #invalidate(String)} or through JMX. Caches are shared by all the connections to the same repository
+ * and registered as {@link TypeDefinitionCacheMXBean} named
+ * {@code org.mule.module.cmis:type=TypeDefinitionCache,application=<application>,name=<connection>}.
+ */
+public class TypeDefinitionCache implements TypeDefinitionCacheMXBean {
+    private static final Logger logger = Logger.getLogger(TypeDefinitionCache.class);
+
+    private static final ConcurrentMap<String, TypeDefinitionCache> CACHES = new ConcurrentHashMap<String, TypeDefinitionCache>();
+
+    private static final int MAX_PRELOAD_THREADS = 4;
+
+    private final ConcurrentMap<String, ObjectType> types = new ConcurrentHashMap<String, ObjectType>();
+    private final ConcurrentMap<String, PropertyConverter> converters = new ConcurrentHashMap<String, PropertyConverter>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the cache of the given repository, creating and registering it if needed.
+     */
+    public static TypeDefinitionCache shared(String key) {
+        TypeDefinitionCache cache = CACHES.get(key);
+        if (cache == null) {
+            TypeDefinitionCache created = new TypeDefinitionCache();
+            cache = CACHES.putIfAbsent(key, created);
+            if (cache == null) {
+                cache = created;
+                register(key, created);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the definition of the given type, fetching it through the session when it is not cached.
+     */
+    public ObjectType get(Session session, String typeId) {
+        ObjectType type = types.get(typeId);
+        if (type != null) {
+            hits.incrementAndGet();
+            return type;
+        }
+        misses.incrementAndGet();
+        return refresh(session, typeId);
+    }
+
+    /**
+     * Fetches the definition of the given type again and caches it.
+     */
+    public ObjectType refresh(Session session, String typeId) {
+        ObjectType type = session.getTypeDefinition(typeId);
+        types.put(typeId, type);
+        converters.remove(typeId);
+        return type;
+    }
+
+    /**
+     * Returns the property converter of the given type, compiling it from the cached definition if needed.
+     */
+    PropertyConverter converter(Session session, String typeId) {
+        PropertyConverter converter = converters.get(typeId);
+        if (converter == null) {
+            converter = PropertyConverter.compile(get(session, typeId));
+            converters.put(typeId, converter);
+        }
+        return converter;
+    }
+
+    /**
+     * Caches the given types and all their subtypes, fetching each type hierarchy concurrently.
+     *
+     * @return the number of cached definitions
+     */
+    public int preload(final Session session, List<String> typeIds) {
+        if (typeIds.isEmpty()) {
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(typeIds.size(), MAX_PRELOAD_THREADS));
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>(typeIds.size());
+        try {
+            for (final String typeId : typeIds) {
+                futures.add(executor.submit(RoundTrips.propagate(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        refresh(session, typeId);
+                        return 1 + put(session.getTypeDescendants(typeId, -1, true));
+                    }
+                })));
+            }
+
+            int count = 0;
+            for (Future<Integer> future : futures) {
+                count += future.get();
+            }
+            logger.debug("Preloaded " + count + " type definitions.");
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CMISConnectorException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CMISConnectorException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int put(List<Tree<ObjectType>> trees) {
+        int count = 0;
+        if (trees != null) {
+            for (Tree<ObjectType> tree : trees) {
+                types.put(tree.getItem().getId(), tree.getItem());
+                converters.remove(tree.getItem().getId());
+                count += 1 + put(tree.getChildren());
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void invalidate(String typeId) {
+        types.remove(typeId);
+        converters.remove(typeId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        types.clear();
+        converters.clear();
+    }
+
+    @Override
+    public int getSize() {
+        return types.size();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static void register(String key, TypeDefinitionCache cache) {
+        MBeanRegistry.add("type=TypeDefinitionCache,name=" + ObjectName.quote(key), cache);
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+/**
+ * Type definition cache published through JMX.
+ */
+public interface TypeDefinitionCacheMXBean {
+
+    /**
+     * @return the number of cached type definitions
+     */
+    int getSize();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Drops the definition of the given type, the next lookup fetches it again.
+     */
+    void invalidate(String typeId);
+
+    /**
+     * Drops every definition, for instance after the content model of the repository changed.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,133 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a repeatable copy of the non-repeatable streams being uploaded until the upload succeeds,
+ * so that an operation retried after a reconnection with the same, already consumed, stream
+ * uploads the original content again. Spoolers are shared by all the connections to the same
+ * repository, because a retry runs on a new connection.
+ */
+public class UploadSpooler {
+
+    private static final ConcurrentMap<String, UploadSpooler> SPOOLERS = new ConcurrentHashMap<String, UploadSpooler>();
+
+    private final int memoryThreshold;
+    private final Map<StreamReference, SpooledContent> spooled = new HashMap<StreamReference, SpooledContent>();
+    private final ReferenceQueue<InputStream> abandoned = new ReferenceQueue<InputStream>();
+
+    public UploadSpooler(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Returns the spooler shared by the connections identified by the given key, creating it if needed.
+     */
+    public static UploadSpooler shared(String key, int memoryThreshold) {
+        UploadSpooler spooler = SPOOLERS.get(key);
+        if (spooler == null) {
+            UploadSpooler created = new UploadSpooler(memoryThreshold);
+            spooler = SPOOLERS.putIfAbsent(key, created);
+            if (spooler == null) {
+                spooler = created;
+            }
+        }
+        return spooler;
+    }
+
+    /**
+     * Returns the copy of the given stream, spooling it the first time it is seen.
+     *
+     * @param digest whether the SHA-256 hash of the content is needed
+     */
+    SpooledContent spool(InputStream stream, boolean digest) {
+        StreamReference reference = new StreamReference(stream, null);
+        SpooledContent previous;
+        synchronized (this) {
+            disposeAbandoned();
+            previous = spooled.get(reference);
+            if (previous != null && (!digest || previous.getHash() != null)) {
+                return previous;
+            }
+        }
+
+        // Either a new stream or one spooled without hash by a previous attempt, which is hashed from the copy
+        SpooledContent content = SpooledContent.spool(previous != null ? previous.openStream() : stream, memoryThreshold, digest);
+        synchronized (this) {
+            spooled.put(new StreamReference(stream, abandoned), content);
+        }
+        if (previous != null) {
+            previous.dispose();
+        }
+        return content;
+    }
+
+    /**
+     * Discards the copy of the given stream once it has been uploaded.
+     */
+    synchronized void release(Object stream) {
+        if (stream instanceof InputStream) {
+            SpooledContent content = spooled.remove(new StreamReference((InputStream) stream, null));
+            if (content != null) {
+                content.dispose();
+            }
+        }
+    }
+
+    synchronized int size() {
+        return spooled.size();
+    }
+
+    /**
+     * Discards the copies of the streams that were garbage collected without a successful upload.
+     */
+    private void disposeAbandoned() {
+        StreamReference reference;
+        while ((reference = (StreamReference) abandoned.poll()) != null) {
+            SpooledContent content = spooled.remove(reference);
+            if (content != null) {
+                content.dispose();
+            }
+        }
+    }
+
+    /**
+     * Weak reference compared by the identity of the referent.
+     */
+    private static class StreamReference extends WeakReference<InputStream> {
+        private final int hash;
+
+        private StreamReference(InputStream stream, ReferenceQueue<InputStream> queue) {
+            super(stream, queue);
+            this.hash = System.identityHashCode(stream);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof StreamReference)) {
+                return false;
+            }
+            InputStream stream = get();
+            return stream != null && stream == ((StreamReference) obj).get();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local copies of the WSDL documents of the SOAP binding. A WSDL is downloaded the first time it is needed,
+ * together with the documents it imports, and stored as {@code <server>/<service>.wsdl} in the cache directory,
+ * where {@code <server>} is the first 16 hexadecimal digits of the SHA-256 hash of the base URL of the repository;
+ * every later session loads it from there. As WSDLs hold the addresses of their endpoints, the copies of different
+ * servers are kept apart. The server directories may also hold bundled copies, which are never downloaded.
+ * Stable local URLs also let CXF reuse the parsed definitions across sessions.
+ */
+public class WsdlCache {
+    private static final Logger logger = Logger.getLogger(WsdlCache.class);
+
+    private static final String ENCODING = "UTF-8";
+    private static final Pattern IMPORT = Pattern.compile("<(?:\\w+:)?(?:import|include)\\b[^>]*>");
+    private static final Pattern LOCATION = Pattern.compile("\\b((?:schemaL|l)ocation)\\s*=\\s*\"([^\"]+)\"");
+
+    private final File directory;
+    private final String username;
+    private final String password;
+    private final int timeout;
+
+    /**
+     * @param baseUrl  base URL of the repository, whose copies are kept in a directory of their own
+     * @param username credentials sent when downloading the documents, can be null
+     * @param timeout  connect and read timeout in milliseconds of the downloads
+     */
+    public WsdlCache(File directory, String baseUrl, String username, String password, int timeout) {
+        File serverDirectory = new File(directory, serverDirectoryName(baseUrl));
+        if (!serverDirectory.isDirectory() && !serverDirectory.mkdirs()) {
+            throw new IllegalArgumentException("Unable to create the WSDL cache directory " +
+                    serverDirectory.getAbsolutePath());
+        }
+        this.directory = serverDirectory;
+        this.username = username;
+        this.password = password;
+        this.timeout = timeout;
+    }
+
+    static String serverDirectoryName(String baseUrl) {
+        try {
+            return SpooledContent.toHex(SpooledContent.newDigest().digest(baseUrl.getBytes(ENCODING))).substring(0, 16);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(ENCODING + " is not supported", e);
+        }
+    }
+
+    /**
+     * Returns the URL of the local copy of the given WSDL, downloading it if there is none yet.
+     *
+     * @param serviceName name of the local copy, without extension
+     * @param wsdlUrl     remote URL of the WSDL
+     * @return the local URL or the remote one if the WSDL could not be downloaded
+     */
+    public String localUrl(String serviceName, String wsdlUrl) {
+        File local = new File(directory, serviceName + ".wsdl");
+        if (!local.isFile()) {
+            try {
+                download(new URL(wsdlUrl), local, new HashMap<String, File>());
+                logger.debug("Stored the WSDL of " + serviceName + " in \"" + local.getAbsolutePath() + "\".");
+            } catch (IOException e) {
+                logger.warn("Unable to store a local copy of " + wsdlUrl + ", it will be loaded from the repository.", e);
+                return wsdlUrl;
+            }
+        }
+        return local.toURI().toString();
+    }
+
+    /**
+     * Downloads a document and the documents it imports, pointing the imports to their local copies.
+     *
+     * @param downloaded local copies of the documents downloaded so far, by remote URL
+     */
+    private void download(URL url, File target, Map<String, File> downloaded) throws IOException {
+        downloaded.put(url.toExternalForm(), target);
+        String document = read(url);
+
+        StringBuffer rewritten = new StringBuffer(document.length());
+        Matcher imports = IMPORT.matcher(document);
+        while (imports.find()) {
+            StringBuffer element = new StringBuffer();
+            Matcher locations = LOCATION.matcher(imports.group());
+            while (locations.find()) {
+                URL imported = new URL(url, locations.group(2).replace("&amp;", "&"));
+                File importedCopy = downloaded.get(imported.toExternalForm());
+                if (importedCopy == null) {
+                    importedCopy = new File(directory, "import-" + Integer.toHexString(imported.toExternalForm().hashCode()) +
+                            "-" + downloaded.size() + ".xsd");
+                    download(imported, importedCopy, downloaded);
+                }
+                locations.appendReplacement(element, Matcher.quoteReplacement(
+                        locations.group(1) + "=\"" + importedCopy.toURI() + "\""));
+            }
+            locations.appendTail(element);
+            imports.appendReplacement(rewritten, Matcher.quoteReplacement(element.toString()));
+        }
+        imports.appendTail(rewritten);
+
+        // Write next to the target and rename, so other connections never see a partial copy
+        File temp = File.createTempFile(target.getName(), ".tmp", directory);
+        FileUtils.writeStringToFile(temp, rewritten.toString(), ENCODING);
+        if (!temp.renameTo(target) && !target.isFile()) {
+            FileUtils.deleteQuietly(temp);
+            throw new IOException("Unable to move the WSDL copy to " + target.getAbsolutePath());
+        }
+        FileUtils.deleteQuietly(temp);
+    }
+
+    private String read(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        if (StringUtils.isNotEmpty(username) && connection instanceof HttpURLConnection) {
+            String credentials = username + ":" + StringUtils.defaultString(password);
+            connection.setRequestProperty("Authorization",
+                    "Basic " + DatatypeConverter.printBase64Binary(credentials.getBytes(ENCODING)));
+        }
+        InputStream in = connection.getInputStream();
+        try {
+            return IOUtils.toString(in, ENCODING);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+}
@@ -9,6 +9,10 @@ public class CMISConnectorException extends RuntimeException {
 
     private static final long serialVersionUID = -2284974690732034438L;
 
+    public CMISConnectorException(String message) {
+        super(message);
+    }
+
     public CMISConnectorException(Throwable cause) {
         super(cause);
     }
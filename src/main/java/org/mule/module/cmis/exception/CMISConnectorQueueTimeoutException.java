@@ -0,0 +1,18 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis.exception;
+
+/**
+ * Thrown without calling the repository when a call waited too long for the concurrency limiter of the connector.
+ */
+public class CMISConnectorQueueTimeoutException extends CMISConnectorException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CMISConnectorQueueTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis.exception;
+
+/**
+ * Thrown when an operation made of several calls to the repository runs past its deadline.
+ */
+public class CMISConnectorTimeoutException extends CMISConnectorException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CMISConnectorTimeoutException(String message) {
+        super(message);
+    }
+}
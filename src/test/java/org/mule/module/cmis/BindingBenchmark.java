@@ -0,0 +1,138 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.server.impl.CmisRepositoryContextListener;
+import org.apache.chemistry.opencmis.server.impl.atompub.CmisAtomPubServlet;
+import org.apache.chemistry.opencmis.server.impl.browser.CmisBrowserBindingServlet;
+import org.apache.chemistry.opencmis.server.impl.webservices.CmisWebServicesServlet;
+import org.apache.chemistry.opencmis.server.shared.BasicAuthCallContextHandler;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServlet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the operations of {@link org.mule.module.cmis.ChemistryCMISFacade} over the AtomPub, Web Services and
+ * Browser bindings of the OpenCMIS in-memory server, which runs in an embedded Jetty on the loopback interface.
+ * The repository is configured by {@code benchmark-repository.properties}. The difference between the bindings
+ * is the cost of their encoding and of their round trips, without the network latency of a remote repository.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BindingBenchmark {
+
+    private static final String REPOSITORY_ID = "A1";
+    private static final String FOLDER = "/benchmark";
+    private static final String FILENAME = "document.txt";
+
+    @Param({"ATOM", "SOAP", "BROWSER"})
+    public CMISConnectionType binding;
+
+    private Server server;
+    private CMISFacade facade;
+    private String documentId;
+
+    @Setup
+    public void setUp() throws Exception {
+        // The server runs the Web Services of the JAX-WS reference implementation, the client must run CXF
+        System.setProperty("javax.xml.ws.spi.Provider", "org.apache.cxf.jaxws.spi.ProviderImpl");
+
+        SelectChannelConnector connector = new SelectChannelConnector();
+        connector.setHost("localhost");
+        connector.setPort(0);
+        server = new Server();
+        server.addConnector(connector);
+
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/cmis");
+        context.setInitParameter("org.apache.chemistry.opencmis.REPOSITORY_CONFIG_FILE",
+                "/benchmark-repository.properties");
+        context.addEventListener(new CmisRepositoryContextListener());
+        context.addServlet(servlet(new CmisAtomPubServlet()), "/atom/*");
+        context.addServlet(servlet(new CmisWebServicesServlet()), "/services/*");
+        context.addServlet(servlet(new CmisBrowserBindingServlet()), "/browser/*");
+        server.setHandler(context);
+        server.start();
+
+        String path = binding == CMISConnectionType.SOAP ? "services" :
+                binding == CMISConnectionType.BROWSER ? "browser" : "atom";
+        facade = new ChemistryCMISFacade("admin", "admin",
+                "http://localhost:" + connector.getLocalPort() + "/cmis/" + path, REPOSITORY_ID, binding, "10000",
+                "org.apache.chemistry.opencmis.client.bindings.spi.webservices.CXFPortProvider", false, false, false);
+
+        byte[] content = new byte[4096];
+        Arrays.fill(content, (byte) 'a');
+        documentId = facade.createDocumentByPath(FOLDER, FILENAME, content, "text/plain", VersioningState.NONE,
+                "cmis:document", null, true).getId();
+    }
+
+    private static ServletHolder servlet(HttpServlet servlet) {
+        ServletHolder holder = new ServletHolder(servlet);
+        holder.setInitParameter("callContextHandler", BasicAuthCallContextHandler.class.getName());
+        holder.setInitParameter("cmisVersion", "1.0");
+        return holder;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Benchmark
+    public CmisObject getObjectById() {
+        return facade.getObjectById(documentId);
+    }
+
+    @Benchmark
+    public CmisObject getObjectByPath() {
+        return facade.getObjectByPath(FOLDER + "/" + FILENAME);
+    }
+
+    @Benchmark
+    public ItemIterable<QueryResult> query() {
+        return facade.query("SELECT cmis:objectId, cmis:name FROM cmis:document WHERE cmis:name = '" + FILENAME + "'",
+                false, null, null);
+    }
+
+    @Benchmark
+    public byte[] getContentStream() throws IOException {
+        ContentStream contentStream = facade.getContentStream(null, documentId);
+        InputStream stream = contentStream.getStream();
+        try {
+            return IOUtils.toByteArray(stream);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+}
@@ -20,10 +20,12 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mule.api.transport.OutputHandler;
 
+import java.io.File;
 import java.util.*;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
@@ -53,6 +55,15 @@ public class CMISConnectorTest {
         this.connector.setConnectionIdentifier(UUID.randomUUID().toString());
     }
 
+    @Test
+    public void testConnectionState() throws Exception {
+        assertTrue(connector.isConnected());
+        connector.connect("http://localhost/cmis", "admin", "admin");
+        assertSame(facade, connector.getFacade());
+        connector.disconnect();
+        assertFalse(connector.isConnected());
+    }
+
     @Test
     public void testRepositories() throws Exception {
         when(facade.repositories()).thenReturn(Collections.<Repository>emptyList());
@@ -86,16 +97,35 @@ public class CMISConnectorTest {
         assertEquals(cmisObject, connector.getObjectByPath("foo/oof"));
     }
 
+    @Test
+    public void testExists() throws Exception {
+        when(facade.exists("foo/oof")).thenReturn(true);
+        assertTrue(connector.exists("foo/oof"));
+        assertFalse(connector.exists("foo/bar"));
+    }
+
+    @Test
+    public void testGetObjectIdByPath() throws Exception {
+        when(facade.getObjectIdByPath(anyString())).thenReturn("fooId");
+        assertEquals("fooId", connector.getObjectIdByPath("foo/oof"));
+    }
+
     @Test
     public void testCreateDocumentByPath() throws Exception {
         when(facade.createDocumentByPath(anyString(), anyString(), anyObject(), anyString(), any(VersioningState.class), anyString(), anyMap(), anyBoolean())).thenReturn(objectId);
-        assertEquals(objectId, connector.createDocumentByPath("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, String>(5), false));
+        assertEquals(objectId, connector.createDocumentByPath("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, Object>(5), false));
     }
 
     @Test
     public void testCreateDocumentByPathFromContent() throws Exception {
         when(facade.createDocumentByPathFromContent(anyString(), anyString(), anyObject(), anyString(), any(VersioningState.class), anyString(), anyMap(), anyBoolean())).thenReturn(objectId);
-        assertEquals(objectId, connector.createDocumentByPathFromContent("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, String>(5), false));
+        assertEquals(objectId, connector.createDocumentByPathFromContent("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, Object>(5), false));
+    }
+
+    @Test
+    public void testUpsertDocumentByPath() throws Exception {
+        when(facade.upsertDocumentByPath(anyString(), anyString(), anyObject(), anyString(), any(VersioningState.class), anyString(), anyMap(), anyBoolean(), anyString(), anyBoolean())).thenReturn(objectId);
+        assertEquals(objectId, connector.upsertDocumentByPath("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.MAJOR, "D:cmiscustom:document", new HashMap<String, Object>(5), false, "comment", false));
     }
 
     @Test
@@ -107,13 +137,25 @@ public class CMISConnectorTest {
     @Test
     public void testCreateDocumentById() throws Exception {
         when(facade.createDocumentById(anyString(), anyString(), anyObject(), anyString(), any(VersioningState.class), anyString(), anyMap())).thenReturn(objectId);
-        assertEquals(objectId, connector.createDocumentById("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, String>(5)));
+        assertEquals(objectId, connector.createDocumentById("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, Object>(5)));
     }
 
     @Test
     public void testCreateDocumentByIdFromContent() throws Exception {
         when(facade.createDocumentByIdFromContent(anyString(), anyString(), anyObject(), anyString(), any(VersioningState.class), anyString(), anyMap())).thenReturn(objectId);
-        assertEquals(objectId, connector.createDocumentByIdFromContent("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, String>(5)));
+        assertEquals(objectId, connector.createDocumentByIdFromContent("/mule-demo", "foo", "This is a mock test", "text/plain;charset=UTF-8", VersioningState.NONE, "D:cmiscustom:document", new HashMap<String, Object>(5)));
+    }
+
+    @Test
+    public void testCopyDocument() throws Exception {
+        when(facade.copyDocument(any(CmisObject.class), anyString(), anyString(), anyString(), any(VersioningState.class), anyMap())).thenReturn(objectId);
+        assertEquals(objectId, connector.copyDocument(cmisObject, "docId", "folderId", "foo", VersioningState.MAJOR, new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void testCopyFolderTree() throws Exception {
+        when(facade.copyFolderTree(any(CmisObject.class), anyString(), anyString(), anyInt())).thenReturn(objectId);
+        assertEquals(objectId, connector.copyFolderTree(cmisObject, "folderId", "targetId", 4));
     }
 
     @Test
@@ -162,6 +204,13 @@ public class CMISConnectorTest {
         assertEquals(contentStream, connector.getContentStream(cmisObject, "fooId"));
     }
 
+    @Test
+    public void testDownloadContent() throws Exception {
+        File file = new File("foo.bin");
+        when(facade.downloadContent(any(CmisObject.class), anyString(), anyString(), anyInt(), anyString(), anyString())).thenReturn(file);
+        assertEquals(file, connector.downloadContent(cmisObject, "fooId", "foo.bin", 4, "SHA-256", null));
+    }
+
     @Test
     public void testMoveObject() throws Exception {
         FileableCmisObject fileableCmisObject = Mockito.mock(FileableCmisObject.class);
@@ -172,7 +221,7 @@ public class CMISConnectorTest {
     @Test
     public void testUpdateObjectProperties() throws Exception {
         when(facade.updateObjectProperties(any(CmisObject.class), anyString(), anyMap())).thenReturn(cmisObject);
-        assertEquals(cmisObject, connector.updateObjectProperties(cmisObject, "fooId", new HashMap<String, String>()));
+        assertEquals(cmisObject, connector.updateObjectProperties(cmisObject, "fooId", new HashMap<String, Object>()));
     }
 
     @Test
@@ -211,7 +260,7 @@ public class CMISConnectorTest {
     @Test
     public void testCheckIn() throws Exception {
         when(facade.checkIn(any(CmisObject.class), anyString(), anyObject(), anyString(), anyString(), anyBoolean(), anyString(), anyMap())).thenReturn(objectId);
-        assertEquals(objectId, connector.checkIn(cmisObject, "docId", "This is a mock test", "foo.txt", "text/plain;charset=UTF-8", false, "Test Checkin Comments", new HashMap<String, String>()));
+        assertEquals(objectId, connector.checkIn(cmisObject, "docId", "This is a mock test", "foo.txt", "text/plain;charset=UTF-8", false, "Test Checkin Comments", new HashMap<String, Object>()));
     }
 
     @Test
@@ -237,7 +286,7 @@ public class CMISConnectorTest {
     @Test
     public void testApplyAspect() throws Exception {
         doNothing().when(facade).applyAspect(anyString(), anyString(), anyMap());
-        connector.applyAspect("objectId", "aspectName", new HashMap<String, String>());
+        connector.applyAspect("objectId", "aspectName", new HashMap<String, Object>());
     }
 
     @Test
@@ -258,4 +307,26 @@ public class CMISConnectorTest {
         when(facade.createRelationship(anyString(), anyString(), anyString())).thenReturn(objectId);
         assertEquals(objectId, connector.createRelationship("parentId", "childId", "relType"));
     }
+
+    @Test
+    public void testDetach() throws Exception {
+        when(facade.detach(cmisObject, "cmis:name")).thenReturn(Collections.emptyList());
+        assertEquals(Collections.emptyList(), connector.detach(cmisObject, "cmis:name"));
+    }
+
+    @Test
+    public void testToJson() throws Exception {
+        OutputHandler handler = new JsonOutputHandler(cmisObject, JsonFormat.NDJSON, null);
+        when(facade.toJson(cmisObject, JsonFormat.NDJSON, "cmis:name")).thenReturn(handler);
+        assertSame(handler, connector.toJson(cmisObject, JsonFormat.NDJSON, "cmis:name"));
+    }
+
+    @Test
+    public void testExportQuery() throws Exception {
+        File file = new File("documents.csv");
+        when(facade.exportQuery("SELECT * FROM cmis:document", false, null, "documents.csv", ExportFormat.CSV,
+                "cmis:name", 500)).thenReturn(file);
+        assertSame(file, connector.exportQuery("SELECT * FROM cmis:document", "documents.csv", ExportFormat.CSV,
+                "cmis:name", null, false, 500));
+    }
 }
\ No newline at end of file
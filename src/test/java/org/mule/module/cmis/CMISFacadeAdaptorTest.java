@@ -0,0 +1,165 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mule.module.cmis.exception.CMISConnectorCircuitOpenException;
+import org.mule.module.cmis.exception.CMISConnectorConnectionException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.CMISFacadeAdaptor} internals
+ */
+public class CMISFacadeAdaptorTest {
+
+    @Mock
+    private CMISFacade facade;
+    @Mock
+    private CmisObject cmisObject;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testConnectionFailureIsTranslated() {
+        when(facade.getObjectById("1")).thenThrow(new CmisConnectionException());
+        try {
+            CMISFacadeAdaptor.adapt(facade).getObjectById("1");
+            fail("The connection failure should be translated");
+        } catch (CMISConnectorConnectionException e) {
+            assertTrue(e.getCause() instanceof CmisConnectionException);
+        }
+    }
+
+    @Test
+    public void testIdempotentOperationIsRetried() {
+        when(facade.getObjectById("1")).thenThrow(new CmisConnectionException()).thenReturn(cmisObject);
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, null, new RetryPolicy(2, 0, 0));
+        assertSame(cmisObject, adapted.getObjectById("1"));
+        verify(facade, times(2)).getObjectById("1");
+    }
+
+    @Test
+    public void testRefusedRequestIsNotRetried() {
+        when(facade.getObjectById("1")).thenThrow(new CmisObjectNotFoundException());
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, null, new RetryPolicy(2, 0, 0));
+        try {
+            adapted.getObjectById("1");
+            fail("The failure should be thrown");
+        } catch (CmisObjectNotFoundException e) {
+            verify(facade, times(1)).getObjectById("1");
+        }
+    }
+
+    @Test
+    public void testNonIdempotentOperationIsNotRetried() {
+        when(facade.createFolder(anyString(), anyString())).thenThrow(new CmisConnectionException());
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, null, new RetryPolicy(2, 0, 0));
+        try {
+            adapted.createFolder("folder", "1");
+            fail("The connection failure should be thrown");
+        } catch (CMISConnectorConnectionException e) {
+            verify(facade, times(1)).createFolder("folder", "1");
+        }
+    }
+
+    @Test
+    public void testOpenCircuitFailsFast() {
+        when(facade.getObjectById("1")).thenThrow(new CmisConnectionException());
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, new CircuitBreaker(100, 2, 60000), null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                adapted.getObjectById("1");
+                fail("The connection failure should be thrown");
+            } catch (CMISConnectorConnectionException e) {
+                // expected
+            }
+        }
+        try {
+            adapted.getObjectById("1");
+            fail("The circuit breaker should be open");
+        } catch (CMISConnectorCircuitOpenException e) {
+            verify(facade, times(2)).getObjectById("1");
+        }
+    }
+
+    @Test
+    public void testSessionCreationFailureIsRetried() {
+        when(facade.getObjectById("1")).thenThrow(new CMISConnectorConnectionException("Unable to create the session",
+                new CmisConnectionException("Connection refused")))
+                .thenReturn(cmisObject);
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, null, new RetryPolicy(2, 0, 0));
+        assertSame(cmisObject, adapted.getObjectById("1"));
+        verify(facade, times(2)).getObjectById("1");
+    }
+
+    @Test
+    public void testConfigurationErrorIsNotRetried() {
+        when(facade.getObjectById("1")).thenThrow(new CMISConnectorConnectionException("The repository ID is missing"));
+        CircuitBreaker circuitBreaker = new CircuitBreaker(100, 1, 60000);
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, circuitBreaker, new RetryPolicy(2, 0, 0));
+        try {
+            adapted.getObjectById("1");
+            fail("The configuration error should be thrown");
+        } catch (CMISConnectorConnectionException e) {
+            verify(facade, times(1)).getObjectById("1");
+        }
+        assertFalse(circuitBreaker.isOpen());
+    }
+
+    @Test
+    public void testSessionCreationFailureOpensCircuit() {
+        when(facade.getObjectById("1")).thenThrow(new CMISConnectorConnectionException("Unable to create the session",
+                new CmisConnectionException("Connection refused")));
+        CircuitBreaker circuitBreaker = new CircuitBreaker(100, 2, 60000);
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, circuitBreaker, null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                adapted.getObjectById("1");
+                fail("The session failure should be thrown");
+            } catch (CMISConnectorConnectionException e) {
+                // expected
+            }
+        }
+        assertTrue(circuitBreaker.isOpen());
+    }
+
+    @Test
+    public void testLocalOperationsBypassCircuitAndConcurrencyLimit() {
+        when(facade.getObjectById("1")).thenThrow(new CmisConnectionException());
+        when(facade.detach(cmisObject, null)).thenReturn(cmisObject);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(100, 1, 60000);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 0);
+        CMISFacade adapted = CMISFacadeAdaptor.adapt(facade, null, circuitBreaker, null, limiter);
+        try {
+            adapted.getObjectById("1");
+            fail("The connection failure should be thrown");
+        } catch (CMISConnectorConnectionException e) {
+            // expected
+        }
+        assertTrue(circuitBreaker.isOpen());
+
+        long start = limiter.acquire(FacadeOperation.GET_OBJECT_BY_ID);
+        try {
+            assertSame(cmisObject, adapted.detach(cmisObject, null));
+            assertTrue(circuitBreaker.isOpen());
+            assertEquals(1, limiter.getInFlight());
+        } finally {
+            limiter.release(FacadeOperation.GET_OBJECT_BY_ID, start, false);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.*;
+import org.apache.chemistry.opencmis.client.runtime.ObjectIdImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.RepositoryCapabilities;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityContentStreamUpdates;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.ChemistryCMISFacade} internals
+ */
+public class ChemistryCMISFacadeTest {
+
+    private static final byte[] CONTENT = "This is a mock test".getBytes();
+
+    private Session session;
+    private ChemistryCMISFacade facade;
+    private Folder folder;
+    private DeduplicationIndex index;
+    private String hash;
+
+    @Before
+    public void setUp() throws Exception {
+        session = mock(Session.class);
+        when(session.createObjectId(anyString())).thenAnswer(new Answer<ObjectId>() {
+            @Override
+            public ObjectId answer(InvocationOnMock invocation) {
+                return new ObjectIdImpl((String) invocation.getArguments()[0]);
+            }
+        });
+        facade = new ChemistryCMISFacade("admin", "admin", "http://localhost/cmis", "repo",
+                CMISConnectionType.ATOM, "10000", null, false, false, true);
+        facade.setSession(session);
+
+        folder = mock(Folder.class);
+        when(folder.getId()).thenReturn("folder");
+        when(folder.getPropertyValue(PropertyIds.PATH)).thenReturn("/docs");
+
+        index = new DeduplicationIndex(10);
+        hash = SpooledContent.toHex(SpooledContent.newDigest().digest(CONTENT));
+    }
+
+    @Test
+    public void testDeduplicationIndexHit() {
+        facade.setDeduplication(DeduplicationMode.SKIP, index, null);
+        index.put(hash, "existing");
+        stubObject("existing", type("cmis:document", null));
+
+        assertEquals("existing", createDocument().getId());
+        verify(session, never()).createDocument(anyMap(), any(ObjectId.class), any(ContentStream.class),
+                any(org.apache.chemistry.opencmis.commons.enums.VersioningState.class));
+        assertEquals(1, index.getDuplicates());
+    }
+
+    @Test
+    public void testDeduplicationIndexHitOfSubtype() {
+        facade.setDeduplication(DeduplicationMode.SKIP, index, null);
+        index.put(hash, "existing");
+        stubObject("existing", type("my:invoice", type("cmis:document", null)));
+
+        assertEquals("existing", createDocument().getId());
+    }
+
+    @Test
+    public void testDeduplicationIndexHitOfOtherTypeIsIgnored() {
+        facade.setDeduplication(DeduplicationMode.SKIP, index, null);
+        index.put(hash, "existing");
+        stubObject("existing", type("cmis:item", null));
+        stubCreated("created");
+
+        assertEquals("created", createDocument().getId());
+        assertEquals("created", index.get(hash));
+    }
+
+    @Test
+    public void testStaleDeduplicationIndexEntry() {
+        facade.setDeduplication(DeduplicationMode.SKIP, index, null);
+        index.put(hash, "deleted");
+        when(session.getObject(objectId("deleted"), any(OperationContext.class)))
+                .thenThrow(new CmisObjectNotFoundException("deleted"));
+        stubCreated("created");
+
+        assertEquals("created", createDocument().getId());
+        assertEquals("created", index.get(hash));
+        assertEquals(0, index.getDuplicates());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDeduplicationQueryHit() {
+        facade.setDeduplication(DeduplicationMode.SKIP, index, "my:hash");
+        ObjectType documentType = type("cmis:document", null);
+        when(documentType.getQueryName()).thenReturn("cmis:document");
+        when(session.getTypeDefinition("cmis:document")).thenReturn(documentType);
+        QueryResult result = mock(QueryResult.class);
+        when(result.getPropertyValueById(PropertyIds.OBJECT_ID)).thenReturn("queried");
+        ItemIterable<QueryResult> results = mock(ItemIterable.class);
+        ItemIterable<QueryResult> page = mock(ItemIterable.class);
+        when(page.iterator()).thenReturn(Collections.singletonList(result).iterator());
+        when(results.getPage(1)).thenReturn(page);
+        when(session.query(eq("SELECT cmis:objectId FROM cmis:document WHERE my:hash = '" + hash + "'"), eq(false),
+                any(OperationContext.class))).thenReturn(results);
+
+        assertEquals("queried", createDocument().getId());
+        assertEquals("queried", index.get(hash));
+    }
+
+    @Test
+    public void testSkippedDuplicateIsNotLinkedNorCreatesPath() {
+        MissingPathCache missingPaths = new MissingPathCache(10, 60000);
+        missingPaths.putMissing("/docs/foo.txt");
+        facade.setMissingPathCache(missingPaths);
+        facade.setDeduplication(DeduplicationMode.SKIP, index, null);
+        index.put(hash, "existing");
+        stubObject("existing", type("cmis:document", null));
+
+        createDocument();
+        verify(session, never()).getRepositoryInfo();
+        assertTrue(missingPaths.isMissing("/docs/foo.txt"));
+    }
+
+    @Test
+    public void testLinkedDuplicate() {
+        facade.setDeduplication(DeduplicationMode.LINK, index, null);
+        index.put(hash, "existing");
+        Document existing = stubObject("existing", type("cmis:document", null));
+        stubMultifiling(true);
+        when(existing.getParents()).thenReturn(Collections.<Folder>emptyList());
+
+        assertEquals("existing", createDocument().getId());
+        verify(existing).addToFolder(folder, true);
+    }
+
+    @Test
+    public void testLinkedDuplicateWithoutMultifiling() {
+        facade.setDeduplication(DeduplicationMode.LINK, index, null);
+        index.put(hash, "existing");
+        Document existing = stubObject("existing", type("cmis:document", null));
+        stubMultifiling(false);
+
+        assertEquals("existing", createDocument().getId());
+        verify(existing, never()).addToFolder(any(ObjectId.class), anyBoolean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpsertCreatesMissingDocument() {
+        when(session.getObjectByPath(eq("/docs/foo.txt"), any(OperationContext.class)))
+                .thenThrow(new CmisObjectNotFoundException("/docs/foo.txt"));
+        when(session.getObjectByPath("/docs")).thenReturn(folder);
+        stubCreated("created");
+
+        assertEquals("created", upsertDocument(null, false, null).getId());
+        verify(session).createDocument(anyMap(), objectId("folder"), any(ContentStream.class),
+                eq(org.apache.chemistry.opencmis.commons.enums.VersioningState.MAJOR));
+    }
+
+    @Test
+    public void testUpsertOfCachedMissingPathSkipsLookup() {
+        MissingPathCache missingPaths = new MissingPathCache(10, 60000);
+        missingPaths.putMissing("/docs/foo.txt");
+        facade.setMissingPathCache(missingPaths);
+        when(session.getObjectByPath("/docs")).thenReturn(folder);
+        stubCreated("created");
+
+        assertEquals("created", upsertDocument(null, false, null).getId());
+        verify(session, never()).getObjectByPath(eq("/docs/foo.txt"), any(OperationContext.class));
+        assertFalse(missingPaths.isMissing("/docs/foo.txt"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpsertOfCachedMissingPathCreatedMeanwhileUpdates() {
+        MissingPathCache missingPaths = new MissingPathCache(10, 60000);
+        missingPaths.putMissing("/docs/foo.txt");
+        facade.setMissingPathCache(missingPaths);
+        when(session.getObjectByPath("/docs")).thenReturn(folder);
+        when(session.createDocument(anyMap(), any(ObjectId.class), any(ContentStream.class),
+                any(org.apache.chemistry.opencmis.commons.enums.VersioningState.class)))
+                .thenThrow(new CmisContentAlreadyExistsException("foo.txt"));
+        Document existing = stubExisting();
+        stubContentStreamUpdates(CapabilityContentStreamUpdates.ANYTIME);
+        when(existing.setContentStream(any(ContentStream.class), eq(true), eq(false)))
+                .thenReturn(new ObjectIdImpl("updated"));
+
+        assertEquals("updated", upsertDocument(null, false, null).getId());
+        assertFalse(missingPaths.isMissing("/docs/foo.txt"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRetriedUpsertUploadsTheSpooledContent() throws Exception {
+        UploadSpooler spooler = new UploadSpooler(1024);
+        facade.setUploadSpooler(spooler);
+        Document existing = stubExisting();
+        stubContentStreamUpdates(CapabilityContentStreamUpdates.PWCONLY);
+        Document pwc = stubCheckOut(existing);
+        final List<String> uploaded = new ArrayList<String>();
+        when(pwc.checkIn(anyBoolean(), anyMap(), any(ContentStream.class), anyString())).thenAnswer(new Answer<ObjectId>() {
+            @Override
+            public ObjectId answer(InvocationOnMock invocation) throws Exception {
+                ContentStream contentStream = (ContentStream) invocation.getArguments()[2];
+                uploaded.add(IOUtils.toString(contentStream.getStream(), "UTF-8"));
+                if (uploaded.size() == 1) {
+                    throw new CmisConnectionException("connection reset");
+                }
+                return new ObjectIdImpl("v2");
+            }
+        });
+        InputStream payload = new ByteArrayInputStream(CONTENT);
+
+        try {
+            upsertDocument(payload, null, false, null);
+            fail("The check in failure should be propagated");
+        } catch (CmisConnectionException e) {
+            assertEquals(1, spooler.size());
+        }
+        assertEquals("v2", upsertDocument(payload, null, false, null).getId());
+        assertEquals(Arrays.asList(new String(CONTENT), new String(CONTENT)), uploaded);
+        assertEquals(0, spooler.size());
+    }
+
+    @Test
+    public void testUpsertSetsContentInPlace() {
+        Document existing = stubExisting();
+        stubContentStreamUpdates(CapabilityContentStreamUpdates.ANYTIME);
+        when(existing.setContentStream(any(ContentStream.class), eq(true), eq(false)))
+                .thenReturn(new ObjectIdImpl("updated"));
+
+        assertEquals("updated", upsertDocument(null, false, null).getId());
+        verify(existing, never()).updateProperties(anyMap());
+        verify(existing, never()).checkOut();
+    }
+
+    @Test
+    public void testUpsertChecksOutWithoutContentUpdates() {
+        Document existing = stubExisting();
+        stubContentStreamUpdates(CapabilityContentStreamUpdates.PWCONLY);
+        Document pwc = stubCheckOut(existing);
+        when(pwc.checkIn(eq(false), anyMap(), any(ContentStream.class), eq(""))).thenReturn(new ObjectIdImpl("v2"));
+
+        assertEquals("v2", upsertDocument(null, false, null).getId());
+        verify(existing, never()).setContentStream(any(ContentStream.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void testUpsertWithPropertiesMajorOrCommentCreatesSingleVersion() {
+        Document existing = stubExisting();
+        stubContentStreamUpdates(CapabilityContentStreamUpdates.ANYTIME);
+        Document pwc = stubCheckOut(existing);
+        Map<String, Object> properties = Collections.<String, Object>singletonMap("cmis:description", "new");
+        when(pwc.checkIn(eq(true), eq(properties), any(ContentStream.class), eq("reviewed")))
+                .thenReturn(new ObjectIdImpl("v2"));
+
+        assertEquals("v2", upsertDocument(properties, true, "reviewed").getId());
+        verify(existing, never()).updateProperties(anyMap());
+        verify(existing, never()).setContentStream(any(ContentStream.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpsertCancelsCheckOutOnFailure() {
+        Document existing = stubExisting();
+        stubContentStreamUpdates(CapabilityContentStreamUpdates.PWCONLY);
+        Document pwc = stubCheckOut(existing);
+        when(pwc.checkIn(anyBoolean(), anyMap(), any(ContentStream.class), anyString()))
+                .thenThrow(new CmisRuntimeException("checkin failed"));
+
+        try {
+            upsertDocument(null, false, null);
+            fail("The check in failure should be propagated");
+        } catch (CmisRuntimeException e) {
+            assertEquals("checkin failed", e.getMessage());
+        }
+        verify(pwc).cancelCheckOut();
+    }
+
+    private ObjectId createDocument() {
+        return facade.createDocument(folder, "foo.txt", CONTENT, "text/plain", VersioningState.MAJOR,
+                "cmis:document", null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreatedFolderStructureOnlyInvalidatesItsPaths() {
+        MissingPathCache missingPaths = new MissingPathCache(10, 60000);
+        missingPaths.putMissing("/other");
+        facade.setMissingPathCache(missingPaths);
+        Folder root = mock(Folder.class);
+        when(root.getId()).thenReturn("root");
+        when(session.getObjectByPath("/docs")).thenThrow(new CmisObjectNotFoundException("/docs"));
+        when(session.getObjectByPath(eq("/"), any(OperationContext.class))).thenReturn(root);
+        when(session.getObjectByPath(eq("/docs/"), any(OperationContext.class)))
+                .thenThrow(new CmisObjectNotFoundException("/docs/"));
+        when(session.getObject(objectId("root"))).thenReturn(root);
+        when(session.createFolder(anyMap(), eq(root))).thenReturn(new ObjectIdImpl("folder"));
+        when(session.getObject(objectId("folder"), any(OperationContext.class))).thenReturn(folder);
+
+        assertSame(folder, facade.getOrCreateFolderByPath("/docs"));
+        assertFalse(missingPaths.isMissing("/docs"));
+        assertTrue(missingPaths.isMissing("/other"));
+    }
+
+    @Test
+    public void testConcurrentReadsOfTwoFacadesShareOneRequest() throws Exception {
+        final SingleFlight<CmisObject> objectReads = SingleFlight.shared("testConcurrentReadsOfTwoFacades");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Document document = mock(Document.class);
+        when(session.getObject(objectId("shared"), any(OperationContext.class))).thenAnswer(new Answer<CmisObject>() {
+            @Override
+            public CmisObject answer(InvocationOnMock invocation) throws Exception {
+                started.countDown();
+                release.await();
+                return document;
+            }
+        });
+        Session otherSession = mock(Session.class);
+        when(otherSession.createObjectId(anyString())).thenReturn(new ObjectIdImpl("shared"));
+        final ChemistryCMISFacade other = new ChemistryCMISFacade("admin", "admin", "http://localhost/cmis", "repo",
+                CMISConnectionType.ATOM, "10000", null, false, false, true);
+        other.setSession(otherSession);
+        facade.setObjectReads(objectReads);
+        other.setObjectReads(objectReads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CmisObject> first = executor.submit(new Callable<CmisObject>() {
+                @Override
+                public CmisObject call() {
+                    return facade.getObjectById("shared");
+                }
+            });
+            started.await();
+            Future<CmisObject> second = executor.submit(new Callable<CmisObject>() {
+                @Override
+                public CmisObject call() {
+                    return other.getObjectById("shared");
+                }
+            });
+            while (objectReads.getCoalesced() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertSame(document, first.get(5, TimeUnit.SECONDS));
+            assertSame(document, second.get(5, TimeUnit.SECONDS));
+            verify(otherSession, never()).getObject(any(ObjectId.class), any(OperationContext.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadsWithOtherArgumentsAreNotShared() {
+        facade.setObjectReads(SingleFlight.<CmisObject>shared("testReadsWithOtherArguments"));
+        Document first = stubObject("first", null);
+        Document second = stubObject("second", null);
+
+        assertSame(first, facade.getObjectById("first"));
+        assertSame(second, facade.getObjectById("second"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueryReadsTheFirstPage() {
+        ItemIterable<QueryResult> results = mock(ItemIterable.class);
+        Iterator<QueryResult> iterator = mock(Iterator.class);
+        when(results.iterator()).thenReturn(iterator);
+        when(iterator.hasNext()).thenThrow(new CmisInvalidArgumentException("Invalid statement"));
+        when(session.query(eq("SELECT * FROM"), eq(false), any(OperationContext.class))).thenReturn(results);
+
+        try {
+            facade.query("SELECT * FROM", false, null, null);
+            fail("The invalid statement should fail the query");
+        } catch (CmisInvalidArgumentException e) {
+            assertEquals("Invalid statement", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWsdlsAreResolvedWhenTheSessionIsCreated() {
+        ChemistryCMISFacade soap = new ChemistryCMISFacade("admin", "admin", "http://localhost:1/cmis", "repo",
+                CMISConnectionType.SOAP, "1000", null, false, false, true);
+        WsdlCache cache = mock(WsdlCache.class);
+        when(cache.localUrl(anyString(), anyString())).thenReturn("file:/missing/ObjectService.wsdl");
+
+        soap.setWsdlCache(cache);
+        verify(cache, never()).localUrl(anyString(), anyString());
+        try {
+            soap.repositoryInfo();
+        } catch (RuntimeException e) {
+            // There is no repository
+        }
+        verify(cache, atLeastOnce()).localUrl(anyString(), anyString());
+        assertTrue(soap.getConnectionParameters().containsValue("file:/missing/ObjectService.wsdl"));
+    }
+
+    private ObjectId upsertDocument(Map<String, Object> properties, boolean major, String checkinComment) {
+        return upsertDocument(CONTENT, properties, major, checkinComment);
+    }
+
+    private ObjectId upsertDocument(Object content, Map<String, Object> properties, boolean major,
+                                    String checkinComment) {
+        return facade.upsertDocumentByPath("/docs", "foo.txt", content, "text/plain", VersioningState.MAJOR,
+                "cmis:document", properties, major, checkinComment, false);
+    }
+
+    private Document stubExisting() {
+        Document existing = stubObject("existing", type("cmis:document", null));
+        when(session.getObjectByPath(eq("/docs/foo.txt"), any(OperationContext.class))).thenReturn(existing);
+        return existing;
+    }
+
+    private Document stubCheckOut(Document existing) {
+        when(existing.checkOut()).thenReturn(new ObjectIdImpl("pwc"));
+        return stubObject("pwc", existing.getType());
+    }
+
+    private void stubContentStreamUpdates(CapabilityContentStreamUpdates updates) {
+        RepositoryCapabilities capabilities = mock(RepositoryCapabilities.class);
+        when(capabilities.getContentStreamUpdatesCapability()).thenReturn(updates);
+        RepositoryInfo info = mock(RepositoryInfo.class);
+        when(info.getCapabilities()).thenReturn(capabilities);
+        when(session.getRepositoryInfo()).thenReturn(info);
+    }
+
+    private Document stubObject(String id, ObjectType type) {
+        Document document = mock(Document.class);
+        when(document.getId()).thenReturn(id);
+        when(document.getType()).thenReturn(type);
+        when(session.getObject(objectId(id), any(OperationContext.class))).thenReturn(document);
+        when(session.getObject(objectId(id))).thenReturn(document);
+        return document;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubCreated(String id) {
+        when(session.createDocument(anyMap(), any(ObjectId.class), any(ContentStream.class),
+                any(org.apache.chemistry.opencmis.commons.enums.VersioningState.class)))
+                .thenReturn(new ObjectIdImpl(id));
+    }
+
+    private void stubMultifiling(boolean supported) {
+        RepositoryCapabilities capabilities = mock(RepositoryCapabilities.class);
+        when(capabilities.isMultifilingSupported()).thenReturn(supported);
+        RepositoryInfo info = mock(RepositoryInfo.class);
+        when(info.getCapabilities()).thenReturn(capabilities);
+        when(session.getRepositoryInfo()).thenReturn(info);
+    }
+
+    private static ObjectId objectId(final String id) {
+        return argThat(new ArgumentMatcher<ObjectId>() {
+            @Override
+            public boolean matches(Object argument) {
+                return argument instanceof ObjectId && id.equals(((ObjectId) argument).getId());
+            }
+        });
+    }
+
+    private static ObjectType type(String id, ObjectType parent) {
+        ObjectType type = mock(ObjectType.class);
+        when(type.getId()).thenReturn(id);
+        when(type.getParentType()).thenReturn(parent);
+        return type;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+import org.mule.module.cmis.exception.CMISConnectorCircuitOpenException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.CircuitBreaker} internals
+ */
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensWhenFailureRateIsReached() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 60000);
+        breaker.onFailure(false);
+        breaker.onSuccess(false);
+        breaker.onFailure(false);
+        assertFalse(breaker.isOpen());
+        breaker.onFailure(false);
+        assertTrue(breaker.isOpen());
+
+        try {
+            breaker.acquire("getObjectById");
+            fail("The circuit breaker should be open");
+        } catch (CMISConnectorCircuitOpenException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStaysClosedBelowFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 60000);
+        for (int i = 0; i < 10; i++) {
+            breaker.onFailure(false);
+            breaker.onSuccess(false);
+            breaker.onSuccess(false);
+            breaker.onSuccess(false);
+        }
+        assertFalse(breaker.isOpen());
+        breaker.acquire("getObjectById");
+    }
+
+    @Test
+    public void testSingleProbeAfterOpenTime() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 2, 0);
+        breaker.onFailure(false);
+        breaker.onFailure(false);
+        assertTrue(breaker.isOpen());
+
+        assertTrue(breaker.acquire("getObjectById"));
+        breaker.onSuccess(true);
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void testOnlyTheProbeClosesTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 2, 60000);
+        breaker.onFailure(false);
+        breaker.onFailure(false);
+        assertTrue(breaker.isOpen());
+
+        // Calls that started before the circuit opened
+        breaker.onSuccess(false);
+        breaker.onFailure(false);
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    public void testFailedProbeKeepsTheCircuitOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 2, 0);
+        breaker.onFailure(false);
+        breaker.onFailure(false);
+
+        assertTrue(breaker.acquire("getObjectById"));
+        breaker.onFailure(true);
+        assertTrue(breaker.isOpen());
+        assertTrue(breaker.acquire("getObjectById"));
+        breaker.onSuccess(true);
+        assertFalse(breaker.isOpen());
+    }
+}
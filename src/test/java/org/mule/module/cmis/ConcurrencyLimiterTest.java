@@ -0,0 +1,66 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+import org.mule.module.cmis.exception.CMISConnectorQueueTimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.ConcurrencyLimiter} internals
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testCallsOverTheLimitTimeOut() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 10);
+        long start = limiter.acquire(FacadeOperation.GET_OBJECT_BY_ID);
+        try {
+            limiter.acquire(FacadeOperation.GET_OBJECT_BY_ID);
+            fail("The second call should time out");
+        } catch (CMISConnectorQueueTimeoutException e) {
+            assertEquals(1, limiter.getQueueTimeouts());
+            assertEquals(0, limiter.getQueueDepth());
+        }
+        limiter.release(FacadeOperation.GET_OBJECT_BY_ID, start, false);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitDecreasesOnConnectionFailures() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 100, 10);
+        long start = limiter.acquire(FacadeOperation.GET_OBJECT_BY_ID);
+        limiter.release(FacadeOperation.GET_OBJECT_BY_ID, start, true);
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitIncreasesWhenFullyUsed() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 100, 10);
+        limiter.release(FacadeOperation.GET_OBJECT_BY_ID, limiter.acquire(FacadeOperation.GET_OBJECT_BY_ID), false);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testOnlyLatencyOfSizeIndependentOperationsDecreasesLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 100, 10);
+        for (FacadeOperation operation : new FacadeOperation[]{FacadeOperation.GET_OBJECT_BY_ID, FacadeOperation.DOWNLOAD_CONTENT}) {
+            limiter.release(operation, limiter.acquire(operation), false);
+        }
+
+        // A large download takes far longer than a small one
+        long start = limiter.acquire(FacadeOperation.DOWNLOAD_CONTENT);
+        Thread.sleep(50);
+        limiter.release(FacadeOperation.DOWNLOAD_CONTENT, start, false);
+        assertEquals(20, limiter.getLimit());
+
+        start = limiter.acquire(FacadeOperation.GET_OBJECT_BY_ID);
+        Thread.sleep(50);
+        limiter.release(FacadeOperation.GET_OBJECT_BY_ID, start, false);
+        assertEquals(18, limiter.getLimit());
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link org.mule.module.cmis.CMISConnector#isConnected()} and of
+ * {@link org.mule.module.cmis.CMISConnector#connect(String, String, String)} on an open connection, as the
+ * connection manager calls them before every operation, compared with the connection state guarded by a lock
+ * that they replaced. Every thread shares the same connector. Run it with {@code -t <threads>} to change the
+ * contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConnectionStateBenchmark {
+
+    private static final String BASE_URL = "http://localhost/cmis";
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+
+    private CMISConnector connector;
+    private LockingConnectionState lockingConnectionState;
+
+    @Setup
+    public void setUp() throws Exception {
+        CMISFacade facade = CMISFacadeAdaptor.adapt(new ChemistryCMISFacade(USERNAME, PASSWORD, BASE_URL, "repo",
+                CMISConnectionType.ATOM, "10000", null, false, false, true));
+        connector = new CMISConnector();
+        connector.setFacade(facade);
+        lockingConnectionState = new LockingConnectionState(facade);
+    }
+
+    @Benchmark
+    public boolean isConnected() {
+        return connector.isConnected();
+    }
+
+    @Benchmark
+    public boolean lockingIsConnected() {
+        return lockingConnectionState.isConnected();
+    }
+
+    @Benchmark
+    public void connect() throws Exception {
+        connector.connect(BASE_URL, USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    public void lockingConnect() {
+        lockingConnectionState.connect(BASE_URL, USERNAME, PASSWORD);
+    }
+
+    /**
+     * The connection state of the connector before its reads stopped locking: both the check of
+     * {@code connect} and {@code isConnected} synchronize on the lock that serializes the creation of the facade.
+     */
+    private static final class LockingConnectionState {
+        private final Object threadSafeLock = new Object();
+        private final CMISFacade connected;
+        private CMISFacade facade;
+
+        private LockingConnectionState(CMISFacade facade) {
+            this.connected = facade;
+            this.facade = facade;
+        }
+
+        void connect(String baseUrl, String username, String password) {
+            if (StringUtils.isBlank(username) || StringUtils.isBlank(password) || StringUtils.isBlank(baseUrl)) {
+                throw new IllegalArgumentException("Missing connection parameters");
+            }
+
+            synchronized (threadSafeLock) {
+                // Prevent re-initialization
+                if (facade == null) {
+                    facade = connected;
+                }
+            }
+        }
+
+        boolean isConnected() {
+            synchronized (threadSafeLock) {
+                return facade != null;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.ContentCache} internals
+ */
+public class ContentCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ContentCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ContentCache(folder.newFolder("cache"), 10);
+    }
+
+    @Test
+    public void testHitForSameChangeToken() throws Exception {
+        assertEquals("12345", read(cache.put("doc1", "t1", content("12345"))));
+        assertEquals("12345", read(cache.get("doc1", "t1")));
+        assertNull(cache.get("doc1", "t2"));
+        assertEquals(5, cache.getSize());
+    }
+
+    @Test
+    public void testNewChangeTokenReplacesPreviousVersion() throws Exception {
+        read(cache.put("doc1", "t1", content("12345")));
+        read(cache.put("doc1", "t2", content("123")));
+        assertNull(cache.get("doc1", "t1"));
+        assertEquals("123", read(cache.get("doc1", "t2")));
+        assertEquals(3, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        read(cache.put("doc1", "t1", content("12345")));
+        read(cache.put("doc2", "t1", content("12345")));
+        read(cache.get("doc1", "t1"));
+        read(cache.put("doc3", "t1", content("12345")));
+        assertNotNull(cache.get("doc1", "t1"));
+        assertNull(cache.get("doc2", "t1"));
+        assertEquals(10, cache.getSize());
+    }
+
+    @Test
+    public void testContentBiggerThanCacheIsNotKept() throws Exception {
+        assertEquals("123456789012", read(cache.put("doc1", "t1", content("123456789012"))));
+        assertNull(cache.get("doc1", "t1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        read(cache.put("doc1", "t1", content("12345")));
+        cache.invalidate("doc1");
+        assertNull(cache.get("doc1", "t1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testContentIsNotReadBeforeTheCaller() throws Exception {
+        ByteArrayInputStream source = new ByteArrayInputStream("12345".getBytes("UTF-8"));
+        ContentStream stream = cache.put("doc1", "t1", new ContentStreamImpl("foo.txt", BigInteger.valueOf(5), "text/plain", source));
+        assertEquals(5, source.available());
+
+        assertEquals('1', stream.getStream().read());
+        assertEquals(4, source.available());
+        assertNull(cache.get("doc1", "t1"));
+        assertEquals("2345", read(stream));
+        assertEquals("12345", read(cache.get("doc1", "t1")));
+    }
+
+    @Test
+    public void testPartiallyReadContentIsNotKept() throws Exception {
+        ContentStream stream = cache.put("doc1", "t1", content("12345"));
+        InputStream in = stream.getStream();
+        in.read(new byte[2]);
+        in.close();
+        assertNull(cache.get("doc1", "t1"));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, folder.getRoot().listFiles()[0].listFiles().length);
+    }
+
+    @Test
+    public void testContentOfUnknownLengthBiggerThanCacheIsNotKept() throws Exception {
+        ContentStream stream = cache.put("doc1", "t1", new ContentStreamImpl("foo.txt", null, "text/plain",
+                new ByteArrayInputStream("123456789012".getBytes("UTF-8"))));
+        assertEquals("123456789012", read(stream));
+        assertNull(cache.get("doc1", "t1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    private static ContentStream content(String value) {
+        return new ContentStreamImpl("foo.txt", "text/plain", value);
+    }
+
+    private static String read(ContentStream stream) throws Exception {
+        InputStream in = stream.getStream();
+        try {
+            return IOUtils.toString(in, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+import org.mule.module.cmis.exception.CMISConnectorTimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.Deadline} internals
+ */
+public class DeadlineTest {
+
+    @Test
+    public void testNoTimeoutNeverExpires() {
+        assertSame(Deadline.NONE, Deadline.after(null));
+        assertSame(Deadline.NONE, Deadline.after(0L));
+        Deadline.NONE.check("creating /a/");
+    }
+
+    @Test(expected = CMISConnectorTimeoutException.class)
+    public void testExpiredDeadlineStopsTheOperation() throws Exception {
+        Deadline deadline = Deadline.after(1L);
+        Thread.sleep(5);
+        assertTrue(deadline.isExpired());
+        deadline.check("creating /a/");
+    }
+}
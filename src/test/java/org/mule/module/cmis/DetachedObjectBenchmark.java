@@ -0,0 +1,173 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.runtime.PropertyImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractPropertyDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDateTimeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIntegerDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringDefinitionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Footprint and serialization speed of {@link org.mule.module.cmis.DetachedObject} compared with a
+ * {@link java.util.HashMap} copy of the same properties. Run it with {@code -prof gc}: the normalized allocation
+ * rate of the detach benchmarks is the heap footprint of one copy, as everything they allocate is retained, and
+ * the serialized size of each copy is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetachedObjectBenchmark {
+
+    @Param({"10", "50"})
+    public int propertyCount;
+
+    private CmisObject object;
+    private DetachedObject detached;
+    private HashMap<String, Object> map;
+    private byte[] serializedDetached;
+    private byte[] serializedMap;
+
+    @Setup
+    public void setUp() throws Exception {
+        final List<Property<?>> properties = new ArrayList<Property<?>>();
+        properties.add(property(new PropertyIdDefinitionImpl(), PropertyIds.OBJECT_ID, PropertyType.ID,
+                Cardinality.SINGLE, "workspace://SpacesStore/0b5bb7a2-ef55-4a22-9ab7-87b6d5d0a4bc;1.0"));
+        properties.add(property(new PropertyStringDefinitionImpl(), PropertyIds.NAME, PropertyType.STRING,
+                Cardinality.SINGLE, "document.txt"));
+        properties.add(property(new PropertyIdDefinitionImpl(), PropertyIds.OBJECT_TYPE_ID, PropertyType.ID,
+                Cardinality.SINGLE, "cmis:document"));
+        properties.add(property(new PropertyDateTimeDefinitionImpl(), PropertyIds.CREATION_DATE,
+                PropertyType.DATETIME, Cardinality.SINGLE, new GregorianCalendar()));
+        properties.add(property(new PropertyIntegerDefinitionImpl(), PropertyIds.CONTENT_STREAM_LENGTH,
+                PropertyType.INTEGER, Cardinality.SINGLE, BigInteger.valueOf(4096)));
+        for (int i = properties.size(); i < propertyCount; i++) {
+            if (i % 5 == 0) {
+                properties.add(property(new PropertyStringDefinitionImpl(), "benchmark:tags" + i, PropertyType.STRING,
+                        Cardinality.MULTI, "alpha", "beta", "gamma"));
+            } else {
+                properties.add(property(new PropertyStringDefinitionImpl(), "benchmark:text" + i, PropertyType.STRING,
+                        Cardinality.SINGLE, "Value " + i));
+            }
+        }
+        // A proxy rather than a mock, as mocks record each of their invocations
+        object = (CmisObject) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{CmisObject.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (!"getProperties".equals(method.getName())) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        return properties;
+                    }
+                });
+
+        detached = detach();
+        map = toMap();
+        serializedDetached = serialize(detached);
+        serializedMap = serialize(map);
+        System.out.println("Serialized sizes with " + propertyCount + " properties: DetachedObject " +
+                serializedDetached.length + " bytes, HashMap " + serializedMap.length + " bytes");
+    }
+
+    @SafeVarargs
+    private static <T> Property<T> property(AbstractPropertyDefinition<T> definition, String id,
+                                            PropertyType propertyType, Cardinality cardinality, T... values) {
+        definition.setId(id);
+        definition.setQueryName(id);
+        definition.setPropertyType(propertyType);
+        definition.setCardinality(cardinality);
+        return new PropertyImpl<T>(definition, Arrays.asList(values));
+    }
+
+    @Benchmark
+    public DetachedObject detach() {
+        return DetachedObject.detachOne(object, null);
+    }
+
+    /**
+     * Copies the properties the way {@link DetachedObject} does, into a map.
+     */
+    @Benchmark
+    public HashMap<String, Object> toMap() {
+        List<Property<?>> properties = object.getProperties();
+        HashMap<String, Object> copy = new HashMap<String, Object>();
+        for (Property<?> property : properties) {
+            Object value = property.isMultiValued() ? property.getValues() : property.getFirstValue();
+            if (value instanceof List) {
+                value = Collections.unmodifiableList(new ArrayList<Object>((List<?>) value));
+            } else if (value instanceof Calendar) {
+                value = ((Calendar) value).clone();
+            }
+            copy.put(property.getId(), value);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public byte[] serializeDetached() throws IOException {
+        return serialize(detached);
+    }
+
+    @Benchmark
+    public byte[] serializeMap() throws IOException {
+        return serialize(map);
+    }
+
+    @Benchmark
+    public Object deserializeDetached() throws Exception {
+        return deserialize(serializedDetached);
+    }
+
+    @Benchmark
+    public Object deserializeMap() throws Exception {
+        return deserialize(serializedMap);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(value);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] serialized) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(serialized)).readObject();
+    }
+}
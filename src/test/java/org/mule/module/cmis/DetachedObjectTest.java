@@ -0,0 +1,125 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.DetachedObject} internals
+ */
+public class DetachedObjectTest {
+
+    @Test
+    public void testOnlyRequestedPropertiesAreKept() {
+        DetachedObject detached = (DetachedObject) DetachedObject.detach(object("1", "foo.txt"), "cmis:objectId, cmis:name");
+        assertEquals("1", detached.getId());
+        assertEquals("foo.txt", detached.getName());
+        assertNull(detached.getPropertyValue("my:tags"));
+        assertEquals(2, detached.getProperties().size());
+    }
+
+    @Test
+    public void testMultiValuedPropertiesAreCopied() {
+        DetachedObject detached = (DetachedObject) DetachedObject.detach(object("1", "foo.txt"), null);
+        assertEquals(Arrays.asList("a", "b"), detached.getPropertyValue("my:tags"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testListsAreDetachedElementByElement() {
+        List<DetachedObject> detached = (List<DetachedObject>) DetachedObject.detach(
+                Arrays.asList(object("1", "foo.txt"), object("2", "bar.txt")), PropertyIds.OBJECT_ID);
+        assertEquals(2, detached.size());
+        assertEquals("2", detached.get(1).getId());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        DetachedObject detached = (DetachedObject) DetachedObject.detach(object("1", "foo.txt"), null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(detached);
+        out.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertEquals(detached, copy);
+        assertEquals("foo.txt", ((DetachedObject) copy).getName());
+    }
+
+    @Test
+    public void testQueryResultValuesAreKeptAsLists() {
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+        properties.add(queryProperty(PropertyIds.OBJECT_ID, "1"));
+        properties.add(queryProperty("my:tags", "a"));
+        properties.add(queryProperty("my:labels"));
+        QueryResult result = mock(QueryResult.class);
+        when(result.getProperties()).thenReturn(properties);
+
+        DetachedObject detached = (DetachedObject) DetachedObject.detach(result, null);
+        assertEquals("1", detached.getId());
+        assertEquals(Collections.singletonList("a"), detached.getPropertyValue("my:tags"));
+        assertEquals(Collections.emptyList(), detached.getPropertyValue("my:labels"));
+    }
+
+    @Test
+    public void testQueryResultPropertiesWithDefinitionsKeepTheirCardinality() {
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+        properties.add(property(PropertyIds.NAME, "foo.txt"));
+        QueryResult result = mock(QueryResult.class);
+        when(result.getProperties()).thenReturn(properties);
+
+        assertEquals("foo.txt", ((DetachedObject) DetachedObject.detach(result, null)).getPropertyValue(PropertyIds.NAME));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedSource() {
+        DetachedObject.detach("foo", null);
+    }
+
+    private static CmisObject object(String id, String name) {
+        List<Property<?>> properties = new ArrayList<Property<?>>();
+        properties.add(property(PropertyIds.OBJECT_ID, id));
+        properties.add(property(PropertyIds.NAME, name));
+        properties.add(property("my:tags", "a", "b"));
+        CmisObject object = mock(CmisObject.class);
+        when(object.getProperties()).thenReturn(properties);
+        return object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Property<?> property(String id, Object... values) {
+        Property<Object> property = mock(Property.class);
+        when(property.getId()).thenReturn(id);
+        when(property.isMultiValued()).thenReturn(values.length > 1);
+        when(property.getFirstValue()).thenReturn(values[0]);
+        when(property.getValues()).thenReturn(Arrays.asList(values));
+        return property;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PropertyData<?> queryProperty(String id, Object... values) {
+        PropertyData<Object> property = mock(PropertyData.class);
+        when(property.getId()).thenReturn(id);
+        when(property.getFirstValue()).thenReturn(values.length > 0 ? values[0] : null);
+        when(property.getValues()).thenReturn(Arrays.asList(values));
+        return property;
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.mule.module.cmis.exception.CMISConnectorConnectionException;
+import org.mule.module.cmis.exception.CMISConnectorException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of {@link org.mule.module.cmis.CMISFacadeAdaptor} compared with the reflective proxy it
+ * replaced, over a facade whose operations return at once. Run it with {@code -prof gc} to compare the allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FacadeCallBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metered;
+
+    private final String path = "/benchmark/document.txt";
+
+    private CMISFacade facade;
+    private CMISFacade reflectiveProxy;
+    private CMISFacade adaptor;
+
+    @Setup
+    public void setUp() {
+        facade = new ChemistryCMISFacade("admin", "admin", "http://localhost/cmis", "repo",
+                CMISConnectionType.ATOM, "10000", null, false, false, true) {
+            @Override
+            public boolean exists(String path) {
+                return true;
+            }
+
+            @Override
+            public String getObjectIdByPath(String path) {
+                return path;
+            }
+        };
+        ConnectorMetrics metrics = metered ? new ConnectorMetrics("benchmark") : null;
+        reflectiveProxy = ReflectiveProxy.adapt(facade, metrics);
+        adaptor = CMISFacadeAdaptor.adapt(facade, metrics, null, null);
+    }
+
+    @Benchmark
+    public String direct() {
+        return facade.getObjectIdByPath(path);
+    }
+
+    @Benchmark
+    public String reflectiveProxy() {
+        return reflectiveProxy.getObjectIdByPath(path);
+    }
+
+    @Benchmark
+    public String adaptor() {
+        return adaptor.getObjectIdByPath(path);
+    }
+
+    @Benchmark
+    public boolean reflectiveProxyBoxed() {
+        return reflectiveProxy.exists(path);
+    }
+
+    @Benchmark
+    public boolean adaptorBoxed() {
+        return adaptor.exists(path);
+    }
+
+    /**
+     * The {@link java.lang.reflect.Proxy} that adapted the facade before {@link CMISFacadeAdaptor} delegated each
+     * operation, without its metering of the downloaded content.
+     */
+    private static final class ReflectiveProxy implements InvocationHandler {
+        private static final Logger logger = LoggerFactory.getLogger(ReflectiveProxy.class);
+
+        private final CMISFacade facade;
+        private final ConnectorMetrics metrics;
+
+        private ReflectiveProxy(CMISFacade facade, ConnectorMetrics metrics) {
+            this.facade = facade;
+            this.metrics = metrics;
+        }
+
+        static CMISFacade adapt(CMISFacade facade, ConnectorMetrics metrics) {
+            return (CMISFacade) Proxy.newProxyInstance(FacadeCallBenchmark.class.getClassLoader(),
+                    new Class[]{CMISFacade.class}, new ReflectiveProxy(facade, metrics));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Invoked method {} with arguments {}", method.getName(), args);
+            }
+
+            OperationMetrics operationMetrics = metrics != null ? metrics.operation(method.getName()) : null;
+            OperationMetrics previous = operationMetrics != null ? OperationMetrics.enter(operationMetrics) : null;
+            RoundTrips roundTrips = operationMetrics != null ? new RoundTrips() : null;
+            RoundTrips previousRoundTrips = roundTrips != null ? RoundTrips.begin(roundTrips) : null;
+            long start = System.nanoTime();
+            try {
+                Object ret = method.invoke(facade, args);
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Returned method {} with value {}", method.getName(), ret);
+                }
+                if (operationMetrics != null) {
+                    operationMetrics.record(System.nanoTime() - start, null);
+                }
+                return ret;
+            } catch (InvocationTargetException e) {
+                if (operationMetrics != null) {
+                    operationMetrics.record(System.nanoTime() - start, e.getCause());
+                }
+
+                Throwable cause = e.getCause();
+
+                if (cause instanceof CmisConnectionException) {
+                    throw new CMISConnectorConnectionException(cause);
+                } else if (cause instanceof RuntimeException) {
+                    throw cause;
+                } else {
+                    throw new CMISConnectorException(cause);
+                }
+            } finally {
+                if (operationMetrics != null) {
+                    RoundTrips.end(previousRoundTrips);
+                    operationMetrics.record(roundTrips);
+                    OperationMetrics.exit(previous);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ChangeEvent;
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.JsonOutputHandler} internals
+ */
+public class JsonOutputHandlerTest {
+
+    @Test
+    public void testJsonArray() throws Exception {
+        assertEquals("[{\"cmis:objectId\":\"1\",\"cmis:name\":\"foo.txt\"},{\"cmis:objectId\":\"2\",\"cmis:name\":\"bar.txt\"}]",
+                write(Arrays.asList(object("1", "foo.txt"), object("2", "bar.txt")), JsonFormat.JSON, "cmis:objectId,cmis:name"));
+    }
+
+    @Test
+    public void testNewlineDelimited() throws Exception {
+        assertEquals("{\"cmis:objectId\":\"1\"}\n{\"cmis:objectId\":\"2\"}\n",
+                write(Arrays.asList(object("1", "foo.txt"), object("2", "bar.txt")), JsonFormat.NDJSON, PropertyIds.OBJECT_ID));
+    }
+
+    @Test
+    public void testEmptyResults() throws Exception {
+        assertEquals("[]", write(Collections.emptyList(), JsonFormat.JSON, null));
+        assertEquals("", write(Collections.emptyList(), JsonFormat.NDJSON, null));
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        assertEquals("{\"cmis:objectId\":\"1\",\"cmis:name\":\"a \\\"quoted\\\"\\n\\\\name\\u0001\",\"my:tags\":[\"a\",\"b\"],\"my:size\":42}",
+                write(object("1", "a \"quoted\"\n\\name\u0001"), JsonFormat.NDJSON, null).trim());
+    }
+
+    @Test
+    public void testDates() throws Exception {
+        Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2014, Calendar.MARCH, 1, 10, 30, 0);
+        StringWriter writer = new StringWriter();
+        JsonOutputHandler.writeValue(writer, calendar);
+        assertEquals("\"2014-03-01T10:30:00Z\"", writer.toString());
+    }
+
+    @Test
+    public void testChangeEvents() throws Exception {
+        ChangeEvent event = mock(ChangeEvent.class);
+        when(event.getObjectId()).thenReturn("1");
+        when(event.getChangeType()).thenReturn(ChangeType.UPDATED);
+        Map<String, List<?>> properties = new LinkedHashMap<String, List<?>>();
+        properties.put(PropertyIds.NAME, Collections.singletonList("foo.txt"));
+        when(event.getProperties()).thenReturn(properties);
+        assertEquals("[{\"objectId\":\"1\",\"changeType\":\"updated\",\"changeTime\":null,\"properties\":{\"cmis:name\":\"foo.txt\"}}]",
+                write(Collections.singletonList(event), JsonFormat.JSON, null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMultiValuedPropertyWithOneValue() throws Exception {
+        Property<Object> tags = (Property<Object>) property("my:tags", "a");
+        when(tags.isMultiValued()).thenReturn(true);
+        List<Property<?>> properties = Arrays.<Property<?>>asList(property(PropertyIds.OBJECT_ID, "1"), tags);
+        CmisObject object = mock(CmisObject.class);
+        when(object.getProperties()).thenReturn(properties);
+        assertEquals("{\"cmis:objectId\":\"1\",\"my:tags\":[\"a\"]}\n", write(object, JsonFormat.NDJSON, null));
+    }
+
+    @Test
+    public void testIterablesAreReadWhileWriting() throws Exception {
+        final List<CmisObject> read = new ArrayList<CmisObject>();
+        Iterable<CmisObject> results = new Iterable<CmisObject>() {
+            public Iterator<CmisObject> iterator() {
+                return new Iterator<CmisObject>() {
+                    public boolean hasNext() {
+                        return read.size() < 3;
+                    }
+
+                    public CmisObject next() {
+                        CmisObject object = object(String.valueOf(read.size()), "foo.txt");
+                        read.add(object);
+                        return object;
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+        JsonOutputHandler handler = new JsonOutputHandler(results, JsonFormat.NDJSON, PropertyIds.OBJECT_ID);
+        assertTrue(read.isEmpty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        handler.write(null, out);
+        assertEquals(3, read.size());
+        assertEquals("{\"cmis:objectId\":\"0\"}\n{\"cmis:objectId\":\"1\"}\n{\"cmis:objectId\":\"2\"}\n", out.toString("UTF-8"));
+    }
+
+    private static String write(Object source, JsonFormat format, String properties) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonOutputHandler(source, format, properties).write(null, out);
+        return out.toString("UTF-8");
+    }
+
+    private static CmisObject object(String id, String name) {
+        List<Property<?>> properties = new ArrayList<Property<?>>();
+        properties.add(property(PropertyIds.OBJECT_ID, id));
+        properties.add(property(PropertyIds.NAME, name));
+        properties.add(property("my:tags", "a", "b"));
+        properties.add(property("my:size", BigInteger.valueOf(42)));
+        CmisObject object = mock(CmisObject.class);
+        when(object.getProperties()).thenReturn(properties);
+        return object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Property<?> property(String id, Object... values) {
+        Property<Object> property = mock(Property.class);
+        when(property.getId()).thenReturn(id);
+        when(property.isMultiValued()).thenReturn(values.length > 1);
+        when(property.getFirstValue()).thenReturn(values[0]);
+        when(property.getValues()).thenReturn(Arrays.asList(values));
+        return property;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.MBeanRegistry} internals
+ */
+public class MBeanRegistryTest {
+
+    @Test
+    public void testMBeansAreRegisteredWhileConnected() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ConnectorMetrics.DOMAIN +
+                ":type=ConcurrencyLimiter,application=\"test\",name=\"registry\"");
+        MBeanRegistry.add("type=ConcurrencyLimiter,name=" + ObjectName.quote("registry"),
+                new ConcurrencyLimiter(1, 1, 1, 0));
+        assertFalse(server.isRegistered(name));
+
+        MBeanRegistry.connected("test");
+        MBeanRegistry.connected("test");
+        assertTrue(server.isRegistered(name));
+        MBeanRegistry.disconnected();
+        assertTrue(server.isRegistered(name));
+        MBeanRegistry.disconnected();
+        assertFalse(server.isRegistered(name));
+
+        // Extra disconnections are ignored
+        MBeanRegistry.disconnected();
+        MBeanRegistry.connected("test");
+        assertTrue(server.isRegistered(name));
+        MBeanRegistry.disconnected();
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.MissingPathCache} internals
+ */
+public class MissingPathCacheTest {
+
+    @Test
+    public void testMissingPathIsRemembered() {
+        MissingPathCache cache = new MissingPathCache(10, 60000);
+        assertFalse(cache.isMissing("/a/b"));
+        cache.putMissing("/a/b/");
+        assertTrue(cache.isMissing("/a/b"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+        MissingPathCache cache = new MissingPathCache(10, 1);
+        cache.putMissing("/a");
+        Thread.sleep(5);
+        assertFalse(cache.isMissing("/a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidateForgetsAncestors() {
+        MissingPathCache cache = new MissingPathCache(10, 60000);
+        cache.putMissing("/a");
+        cache.putMissing("/a/b");
+        cache.putMissing("/a/b/c.txt");
+        cache.putMissing("/a/bc");
+        cache.invalidate("/a/b/c.txt");
+        assertFalse(cache.isMissing("/a"));
+        assertFalse(cache.isMissing("/a/b"));
+        assertFalse(cache.isMissing("/a/b/c.txt"));
+        assertTrue(cache.isMissing("/a/bc"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        MissingPathCache cache = new MissingPathCache(2, 60000);
+        cache.putMissing("/a");
+        cache.putMissing("/b");
+        cache.isMissing("/a");
+        cache.putMissing("/c");
+        assertTrue(cache.isMissing("/a"));
+        assertFalse(cache.isMissing("/b"));
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.OperationMetrics} internals
+ */
+public class OperationMetricsTest {
+
+    @Test
+    public void testHistogramBucketsContainTheirValues() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.upperBound(index));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        OperationMetrics metrics = new OperationMetrics("getObjectById");
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(TimeUnit.MILLISECONDS.toNanos(i), null);
+        }
+        assertEquals(100, metrics.getInvocations());
+        assertEquals(100.0, metrics.getMaxLatency(), 0.0);
+        assertEquals(50.0, metrics.getLatency50thPercentile(), 50.0 * 0.125);
+        assertEquals(95.0, metrics.getLatency95thPercentile(), 95.0 * 0.125);
+        assertEquals(99.0, metrics.getLatency99thPercentile(), 99.0 * 0.125);
+        assertEquals(50.5, metrics.getMeanLatency(), 0.001);
+    }
+
+    @Test
+    public void testErrorsByType() {
+        OperationMetrics metrics = new OperationMetrics("getObjectById");
+        metrics.record(1000, new CmisObjectNotFoundException());
+        metrics.record(1000, new CmisObjectNotFoundException());
+        metrics.record(1000, new IllegalArgumentException());
+        metrics.record(1000, null);
+        assertEquals(4, metrics.getInvocations());
+        assertEquals(3, metrics.getErrors());
+        assertEquals(Long.valueOf(2), metrics.getErrorsByType().get(CmisObjectNotFoundException.class.getName()));
+        assertEquals(Long.valueOf(1), metrics.getErrorsByType().get(IllegalArgumentException.class.getName()));
+
+        metrics.reset();
+        assertEquals(0, metrics.getInvocations());
+        assertTrue(metrics.getErrorsByType().isEmpty());
+    }
+
+    @Test
+    public void testTransferredBytes() throws Exception {
+        OperationMetrics metrics = new OperationMetrics("createDocumentById");
+        OperationMetrics previous = OperationMetrics.enter(metrics);
+        try {
+            IOUtils.toString(OperationMetrics.meterUpload(content("12345")).getStream());
+        } finally {
+            OperationMetrics.exit(previous);
+        }
+        IOUtils.toString(OperationMetrics.meterUpload(content("123")).getStream());
+        IOUtils.toString(metrics.meterDownload(content("1234567")).getStream());
+
+        assertEquals(5, metrics.getBytesUploaded());
+        assertEquals(7, metrics.getBytesDownloaded());
+    }
+
+    @Test
+    public void testRoundTrips() {
+        OperationMetrics metrics = new OperationMetrics("getOrCreateFolderByPath");
+        for (int requests : new int[]{2, 15}) {
+            RoundTrips roundTrips = new RoundTrips();
+            for (int i = 0; i < requests; i++) {
+                roundTrips.requestSent();
+                roundTrips.responseReceived(100);
+            }
+            metrics.record(roundTrips);
+        }
+        assertEquals(17, metrics.getHttpRequests());
+        assertEquals(8.5, metrics.getMeanHttpRequests(), 0.0);
+        assertEquals(15, metrics.getMaxHttpRequests());
+        assertEquals(1700, metrics.getHttpResponseBytes());
+    }
+
+    private static ContentStream content(String value) {
+        return new ContentStreamImpl("foo.txt", "text/plain", value);
+    }
+}
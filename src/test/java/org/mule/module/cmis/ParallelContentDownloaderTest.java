@@ -0,0 +1,153 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mule.module.cmis.exception.CMISConnectorException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.ParallelContentDownloader} internals
+ */
+public class ParallelContentDownloaderTest {
+
+    private static final int LENGTH = (int) (3 * ParallelContentDownloader.MIN_RANGE_SIZE + 5);
+
+    private byte[] content;
+    private Session session;
+    private Document document;
+    private File target;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[LENGTH];
+        new Random(42).nextBytes(content);
+        session = mock(Session.class);
+        document = mock(Document.class);
+        when(document.getId()).thenReturn("1");
+        when(document.getContentStreamLength()).thenReturn((long) LENGTH);
+        target = File.createTempFile("download", ".tmp");
+    }
+
+    @After
+    public void tearDown() {
+        target.delete();
+    }
+
+    @Test
+    public void testRangeCount() {
+        assertEquals(1, ParallelContentDownloader.rangeCount(-1, 4));
+        assertEquals(1, ParallelContentDownloader.rangeCount(0, 4));
+        assertEquals(1, ParallelContentDownloader.rangeCount(10, 4));
+        assertEquals(2, ParallelContentDownloader.rangeCount(ParallelContentDownloader.MIN_RANGE_SIZE + 1, 4));
+        assertEquals(4, ParallelContentDownloader.rangeCount(LENGTH, 4));
+        assertEquals(2, ParallelContentDownloader.rangeCount(LENGTH, 2));
+    }
+
+    @Test
+    public void testRangesAreWrittenInPlace() throws Exception {
+        stubContent(true, true);
+        new ParallelContentDownloader(session).download(document, target, 4, "SHA-256", null);
+
+        assertArrayEquals(content, FileUtils.readFileToByteArray(target));
+        verify(session, times(4)).getContentStream(any(ObjectId.class), anyString(), any(BigInteger.class), any(BigInteger.class));
+    }
+
+    @Test
+    public void testIgnoredRangeFallsBackToSingleStream() throws Exception {
+        stubContent(false, true);
+        new ParallelContentDownloader(session).download(document, target, 4, "SHA-256", null);
+
+        assertArrayEquals(content, FileUtils.readFileToByteArray(target));
+        verify(session).getContentStream(document, null, null, null);
+    }
+
+    @Test
+    public void testIgnoredRangeOfUnknownLengthFallsBackToSingleStream() throws Exception {
+        stubContent(false, false);
+        new ParallelContentDownloader(session).download(document, target, 4, "SHA-256", null);
+
+        assertArrayEquals(content, FileUtils.readFileToByteArray(target));
+        verify(session).getContentStream(document, null, null, null);
+    }
+
+    @Test
+    public void testChecksum() throws Exception {
+        stubContent(true, true);
+        String checksum = SpooledContent.toHex(MessageDigest.getInstance("SHA-256").digest(content));
+        new ParallelContentDownloader(session).download(document, target, 4, "SHA-256", checksum);
+        assertArrayEquals(content, FileUtils.readFileToByteArray(target));
+    }
+
+    @Test
+    public void testChecksumMismatchDeletesFile() throws Exception {
+        stubContent(true, true);
+        try {
+            new ParallelContentDownloader(session).download(document, target, 4, "SHA-256", "00");
+            fail();
+        } catch (CMISConnectorException e) {
+            assertTrue(e.getMessage().contains("checksum"));
+        }
+        assertFalse(target.exists());
+    }
+
+    @Test
+    public void testTruncatedContentDeletesFile() throws Exception {
+        when(document.getContentStreamLength()).thenReturn(10L);
+        when(session.getContentStream(document, null, null, null)).thenReturn(
+                new ContentStreamImpl("foo.bin", null, "application/octet-stream", new ByteArrayInputStream(new byte[5])));
+        try {
+            new ParallelContentDownloader(session).download(document, target, 4, "SHA-256", null);
+            fail();
+        } catch (CMISConnectorException e) {
+            assertTrue(e.getMessage().contains("incomplete"));
+        }
+        assertFalse(target.exists());
+    }
+
+    /**
+     * @param honorRanges whether requested ranges are returned or the whole content instead
+     * @param knownLength whether the streams report their length
+     */
+    private void stubContent(final boolean honorRanges, final boolean knownLength) {
+        when(session.getContentStream(any(ObjectId.class), anyString(), any(BigInteger.class), any(BigInteger.class)))
+                .thenAnswer(new Answer<ContentStream>() {
+                    @Override
+                    public ContentStream answer(InvocationOnMock invocation) {
+                        BigInteger offset = (BigInteger) invocation.getArguments()[2];
+                        BigInteger length = (BigInteger) invocation.getArguments()[3];
+                        byte[] bytes = content;
+                        if (honorRanges && offset != null) {
+                            int from = offset.intValue();
+                            bytes = Arrays.copyOfRange(content, from, Math.min(LENGTH, from + length.intValue()));
+                        }
+                        return new ContentStreamImpl("foo.bin", knownLength ? BigInteger.valueOf(bytes.length) : null,
+                                "application/octet-stream", new ByteArrayInputStream(bytes));
+                    }
+                });
+    }
+}
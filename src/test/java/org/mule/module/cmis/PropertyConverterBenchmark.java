@@ -0,0 +1,141 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ObjectType;
+import org.apache.chemistry.opencmis.client.runtime.objecttype.DocumentTypeImpl;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractPropertyDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.DocumentTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyBooleanDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDateTimeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDecimalDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIntegerDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringDefinitionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of 60 properties of a document type by {@link org.mule.module.cmis.PropertyConverter#convert(java.util.Map)}:
+ * 10 boolean, integer, decimal, date time and string properties given as strings, 5 multi-valued integer properties
+ * and 5 properties the type does not define. The translation of the string properties that the converter replaced
+ * is the baseline. Run it with {@code -prof gc} to compare the allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyConverterBenchmark {
+
+    private ObjectType type;
+    private PropertyConverter converter;
+    private Map<String, String> properties;
+
+    @Setup
+    public void setUp() {
+        DocumentTypeDefinitionImpl definition = new DocumentTypeDefinitionImpl();
+        definition.setId("benchmark:document");
+        properties = new HashMap<String, String>();
+        for (int i = 0; i < 10; i++) {
+            define(definition, new PropertyBooleanDefinitionImpl(), "benchmark:flag" + i, PropertyType.BOOLEAN);
+            properties.put("benchmark:flag" + i, i % 2 == 0 ? "true" : "false");
+            define(definition, new PropertyIntegerDefinitionImpl(), "benchmark:count" + i, PropertyType.INTEGER);
+            properties.put("benchmark:count" + i, String.valueOf(i * 1000));
+            define(definition, new PropertyDecimalDefinitionImpl(), "benchmark:price" + i, PropertyType.DECIMAL);
+            properties.put("benchmark:price" + i, i + ".99");
+            define(definition, new PropertyDateTimeDefinitionImpl(), "benchmark:date" + i, PropertyType.DATETIME);
+            properties.put("benchmark:date" + i, "2014-01-" + (10 + i) + "T10:00:00Z");
+            define(definition, new PropertyStringDefinitionImpl(), "benchmark:title" + i, PropertyType.STRING);
+            properties.put("benchmark:title" + i, "Title " + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            define(definition, new PropertyIntegerDefinitionImpl(), "benchmark:sizes" + i, PropertyType.INTEGER);
+            properties.put("M:benchmark:sizes" + i, "1,2,3,4,5");
+            properties.put("benchmark:unknown" + i, "Unknown " + i);
+        }
+        type = new DocumentTypeImpl(null, definition);
+        converter = PropertyConverter.compile(type);
+    }
+
+    private static void define(DocumentTypeDefinitionImpl type, AbstractPropertyDefinition<?> definition, String id,
+                               PropertyType propertyType) {
+        definition.setId(id);
+        definition.setQueryName(id);
+        definition.setPropertyType(propertyType);
+        type.addPropertyDefinition(definition);
+    }
+
+    @Benchmark
+    public Map<String, Object> convert() {
+        return converter.convert(properties);
+    }
+
+    /**
+     * Without the type definition cache, the converters are compiled by every operation.
+     */
+    @Benchmark
+    public Map<String, Object> compileAndConvert() {
+        return PropertyConverter.compile(type).convert(properties);
+    }
+
+    @Benchmark
+    public Map<String, Object> convertUntyped() {
+        return PropertyConverter.UNTYPED.convert(properties);
+    }
+
+    @Benchmark
+    public Map<String, Object> translateInboundProperties() {
+        return translateInboundProperties(properties);
+    }
+
+    /**
+     * The translation of the properties before {@link PropertyConverter}: values are kept as strings and the
+     * multi-valued ones are split with a regular expression.
+     */
+    private static Map<String, Object> translateInboundProperties(Map<String, String> inboundProperties) {
+        Map<String, Object> returnMap = new HashMap<String, Object>();
+
+        if (inboundProperties == null) {
+            returnMap = null;
+        } else if (!inboundProperties.isEmpty()) {
+            Iterator<Map.Entry<String, String>> keySetItr = inboundProperties.entrySet().iterator();
+            while (keySetItr.hasNext()) {
+                Map.Entry<String, String> entry = keySetItr.next();
+                String currentKey = entry.getKey();
+                String currentVal = entry.getValue();
+
+                // Don't waste our time with empty properties.
+                if (currentVal != null) {
+                    // Determine if this is a multi-valued property.
+                    if (currentKey.toLowerCase().startsWith("m:")) {
+                        // This is a multi-valued property. Each value is separated by a ','.
+                        String[] valArray = currentVal.split(",");
+
+                        List<String> propArray = new ArrayList<String>(Arrays.asList(valArray));
+                        returnMap.put(currentKey.substring(2), propArray);
+                    } else {
+                        // Just add the property into the return list as is.
+                        returnMap.put(currentKey, currentVal);
+                    }
+                }
+            }
+        }
+        return returnMap;
+    }
+}
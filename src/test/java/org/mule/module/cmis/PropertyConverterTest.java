@@ -0,0 +1,130 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ObjectType;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.PropertyConverter} internals
+ */
+public class PropertyConverterTest {
+
+    private PropertyConverter converter;
+
+    @Before
+    public void setUp() {
+        Map<String, PropertyDefinition<?>> definitions = new HashMap<String, PropertyDefinition<?>>();
+        definitions.put("my:flag", definition("my:flag", PropertyType.BOOLEAN));
+        definitions.put("my:count", definition("my:count", PropertyType.INTEGER));
+        definitions.put("my:price", definition("my:price", PropertyType.DECIMAL));
+        definitions.put("my:date", definition("my:date", PropertyType.DATETIME));
+        definitions.put("my:tags", definition("my:tags", PropertyType.STRING));
+        ObjectType type = mock(ObjectType.class);
+        when(type.getPropertyDefinitions()).thenReturn(definitions);
+        converter = PropertyConverter.compile(type);
+    }
+
+    @Test
+    public void testStringsAreConvertedForTheirDefinitions() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("my:flag", "true");
+        properties.put("my:count", "42");
+        properties.put("my:price", "9.99");
+        properties.put("my:date", "2014-01-31T10:00:00Z");
+        properties.put("my:unknown", "foo");
+
+        Map<String, Object> converted = converter.convert(properties);
+        assertEquals(Boolean.TRUE, converted.get("my:flag"));
+        assertEquals(BigInteger.valueOf(42), converted.get("my:count"));
+        assertEquals(new BigDecimal("9.99"), converted.get("my:price"));
+        assertTrue(converted.get("my:date") instanceof GregorianCalendar);
+        assertEquals("foo", converted.get("my:unknown"));
+    }
+
+    @Test
+    public void testBooleansAreCaseInsensitive() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("my:flag", " FALSE ");
+        assertEquals(Boolean.FALSE, converter.convert(properties).get("my:flag"));
+
+        properties.clear();
+        properties.put("M:my:flag", "True,false");
+        assertEquals(Arrays.asList(Boolean.TRUE, Boolean.FALSE), converter.convert(properties).get("my:flag"));
+    }
+
+    @Test
+    public void testInvalidBooleanIsRejected() {
+        for (String value : new String[]{"yes", "1", ""}) {
+            Map<String, Object> properties = new HashMap<String, Object>();
+            properties.put("my:flag", value);
+            try {
+                converter.convert(properties);
+                fail("\"" + value + "\" should be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("my:flag"));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidNumberNamesProperty() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("my:count", "forty-two");
+        try {
+            converter.convert(properties);
+            fail("The value should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("my:count"));
+        }
+    }
+
+    @Test
+    public void testTypedValuesAreKept() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("my:count", 42);
+        properties.put("my:date", new Date(0));
+
+        Map<String, Object> converted = converter.convert(properties);
+        assertEquals(42, converted.get("my:count"));
+        assertEquals(0, ((GregorianCalendar) converted.get("my:date")).getTimeInMillis());
+    }
+
+    @Test
+    public void testMultiValuedProperties() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("M:my:tags", "a,b,c");
+        properties.put("m:my:count", Arrays.asList("1", "2"));
+        properties.put("my:flag", null);
+
+        Map<String, Object> converted = converter.convert(properties);
+        assertEquals(Arrays.asList("a", "b", "c"), converted.get("my:tags"));
+        assertEquals(Arrays.asList(BigInteger.ONE, BigInteger.valueOf(2)), converted.get("my:count"));
+        assertFalse(converted.containsKey("my:flag"));
+    }
+
+    @Test
+    public void testNullProperties() {
+        assertNull(converter.convert(null));
+    }
+
+    private static PropertyDefinition<?> definition(String id, PropertyType propertyType) {
+        PropertyDefinition<?> definition = mock(PropertyDefinition.class);
+        when(definition.getId()).thenReturn(id);
+        when(definition.getPropertyType()).thenReturn(propertyType);
+        return definition;
+    }
+}
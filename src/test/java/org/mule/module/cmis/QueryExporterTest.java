@@ -0,0 +1,134 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.QueryExporter} internals
+ */
+public class QueryExporterTest {
+
+    private File target;
+
+    @Before
+    public void setUp() throws Exception {
+        target = File.createTempFile("export", ".tmp");
+    }
+
+    @After
+    public void tearDown() {
+        target.delete();
+    }
+
+    @Test
+    public void testNewlineDelimitedJson() throws Exception {
+        ItemIterable<QueryResult> results = results(
+                Arrays.asList(result("1", "foo.txt"), result("2", "bar.txt")),
+                Arrays.asList(result("3", "baz.txt")));
+        new QueryExporter(ExportFormat.NDJSON, "cmis:name, cmis:objectId").export(results, target);
+        assertEquals("{\"cmis:name\":[\"foo.txt\"],\"cmis:objectId\":[\"1\"]}\n" +
+                "{\"cmis:name\":[\"bar.txt\"],\"cmis:objectId\":[\"2\"]}\n" +
+                "{\"cmis:name\":[\"baz.txt\"],\"cmis:objectId\":[\"3\"]}\n", FileUtils.readFileToString(target, "UTF-8"));
+    }
+
+    @Test
+    public void testCsvHeaderFromColumns() throws Exception {
+        ItemIterable<QueryResult> results = results(
+                Arrays.asList(result("1", "foo.txt")),
+                Arrays.asList(result("2", "bar.txt")));
+        new QueryExporter(ExportFormat.CSV, "cmis:name, cmis:objectId").export(results, target);
+        assertEquals("cmis:name,cmis:objectId\r\nfoo.txt,1\r\nbar.txt,2\r\n",
+                FileUtils.readFileToString(target, "UTF-8"));
+    }
+
+    @Test
+    public void testCsvHeaderFromFirstResult() throws Exception {
+        ItemIterable<QueryResult> results = results(
+                Arrays.asList(result("1", "foo, \"bar\".txt")),
+                Arrays.asList(result("2", "baz.txt")));
+        new QueryExporter(ExportFormat.CSV, null).export(results, target);
+        assertEquals("cmis:objectId,cmis:name\r\n1,\"foo, \"\"bar\"\".txt\"\r\n2,baz.txt\r\n",
+                FileUtils.readFileToString(target, "UTF-8"));
+    }
+
+    @Test
+    public void testCsvValues() {
+        assertEquals("", QueryExporter.csvValue(null));
+        assertEquals("a;b", QueryExporter.csvValue(Arrays.asList("a", "b")));
+        Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2014, Calendar.MARCH, 1, 10, 30, 0);
+        assertEquals("2014-03-01T10:30:00Z", QueryExporter.csvValue(calendar));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIncompleteExportIsDeleted() throws Exception {
+        ItemIterable<QueryResult> results = results(Arrays.asList(result("1", "foo.txt")), null);
+        ItemIterable<QueryResult> failing = mock(ItemIterable.class);
+        when(failing.getPage()).thenThrow(new IllegalStateException("unreachable"));
+        when(results.skipTo(1)).thenReturn(failing);
+        try {
+            new QueryExporter(ExportFormat.CSV, "cmis:objectId").export(results, target);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("unreachable", e.getMessage());
+        }
+        assertFalse(target.exists());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ItemIterable<QueryResult> results(List<QueryResult>... pages) {
+        ItemIterable<QueryResult> results = mock(ItemIterable.class);
+        long skip = 0;
+        for (int i = 0; i < pages.length; i++) {
+            if (pages[i] == null) {
+                continue;
+            }
+            ItemIterable<QueryResult> skipped = mock(ItemIterable.class);
+            ItemIterable<QueryResult> page = mock(ItemIterable.class);
+            when(page.iterator()).thenReturn(pages[i].iterator());
+            when(page.getHasMoreItems()).thenReturn(i < pages.length - 1);
+            when(skipped.getPage()).thenReturn(page);
+            when(results.skipTo(skip)).thenReturn(skipped);
+            skip += pages[i].size();
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryResult result(String id, String name) {
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+        properties.add(property(PropertyIds.OBJECT_ID, id));
+        properties.add(property(PropertyIds.NAME, name));
+        QueryResult result = mock(QueryResult.class);
+        when(result.getProperties()).thenReturn(properties);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PropertyData<?> property(String id, Object value) {
+        PropertyData<Object> property = mock(PropertyData.class);
+        when(property.getId()).thenReturn(id);
+        when(property.getFirstValue()).thenReturn(value);
+        when(property.getValues()).thenReturn(Collections.singletonList(value));
+        return property;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.*;
+import org.apache.chemistry.opencmis.client.runtime.ObjectIdImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.enums.Updatability;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.RepositoryCopier} internals
+ */
+public class RepositoryCopierTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFallbackCopiesSourceProperties() {
+        Session session = mock(Session.class);
+        ObjectId folderId = new ObjectIdImpl("folder");
+        Document source = mock(Document.class);
+        ObjectType type = mock(ObjectType.class);
+        when(type.getId()).thenReturn("cmis:document");
+        when(source.getType()).thenReturn(type);
+        when(source.getName()).thenReturn("foo.txt");
+        List<Property<?>> properties = new ArrayList<Property<?>>();
+        properties.add(property("cmis:description", Updatability.READWRITE, "a description"));
+        properties.add(property("my:tags", Updatability.ONCREATE, "a", "b"));
+        properties.add(property(PropertyIds.CREATED_BY, Updatability.READONLY, "admin"));
+        when(source.getProperties()).thenReturn(properties);
+        when(session.createDocumentFromSource(any(ObjectId.class), anyMap(), any(ObjectId.class), any(VersioningState.class)))
+                .thenThrow(new CmisNotSupportedException("AtomPub"));
+
+        Map<String, Object> overrides = new HashMap<String, Object>();
+        overrides.put(PropertyIds.NAME, "bar.txt");
+        new RepositoryCopier().copy(session, source, overrides, folderId, VersioningState.MAJOR);
+
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(session).createDocument(captor.capture(), eq(folderId), any(ContentStream.class), eq(VersioningState.MAJOR));
+        Map<String, Object> copied = captor.getValue();
+        assertEquals("bar.txt", copied.get(PropertyIds.NAME));
+        assertEquals("cmis:document", copied.get(PropertyIds.OBJECT_TYPE_ID));
+        assertEquals("a description", copied.get("cmis:description"));
+        assertEquals(Arrays.asList("a", "b"), copied.get("my:tags"));
+        assertFalse(copied.containsKey(PropertyIds.CREATED_BY));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Property<?> property(String id, Updatability updatability, Object... values) {
+        PropertyDefinition<Object> definition = mock(PropertyDefinition.class);
+        when(definition.getUpdatability()).thenReturn(updatability);
+        Property<Object> property = mock(Property.class);
+        when(property.getId()).thenReturn(id);
+        when(property.getDefinition()).thenReturn(definition);
+        when(property.isMultiValued()).thenReturn(values.length > 1);
+        when(property.getFirstValue()).thenReturn(values[0]);
+        when(property.getValues()).thenReturn(Arrays.asList(values));
+        return property;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.Repository;
+import org.apache.chemistry.opencmis.client.api.SessionFactory;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.RepositoryDiscovery} internals
+ */
+public class RepositoryDiscoveryTest {
+
+    private SessionFactory factory;
+    private Map<String, String> parameters;
+
+    @Before
+    public void setUp() {
+        factory = mock(SessionFactory.class);
+        when(factory.getRepositories(anyMapOf(String.class, String.class)))
+                .thenReturn(Collections.singletonList(mock(Repository.class)));
+        parameters = new HashMap<String, String>();
+        parameters.put(SessionParameter.USER, "admin");
+        parameters.put(SessionParameter.PASSWORD, "admin");
+    }
+
+    @After
+    public void tearDown() {
+        RepositoryDiscovery.clear();
+    }
+
+    @Test
+    public void testListIsCachedWithinTtl() {
+        List<Repository> first = RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 60000);
+        List<Repository> second = RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 60000);
+        assertSame(first, second);
+        verify(factory, times(1)).getRepositories(parameters);
+    }
+
+    @Test
+    public void testCredentialsArePartOfTheKey() {
+        RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 60000);
+        Map<String, String> other = new HashMap<String, String>(parameters);
+        other.put(SessionParameter.PASSWORD, "wrong");
+        RepositoryDiscovery.getRepositories(factory, other, "http://localhost/", 60000);
+        verify(factory, times(2)).getRepositories(anyMapOf(String.class, String.class));
+    }
+
+    @Test
+    public void testZeroTtlDisablesTheCache() {
+        RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 0);
+        RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 0);
+        verify(factory, times(2)).getRepositories(parameters);
+    }
+
+    @Test
+    public void testExpiredListIsLoadedAgain() throws Exception {
+        RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 1);
+        Thread.sleep(5);
+        RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 1);
+        verify(factory, times(2)).getRepositories(parameters);
+    }
+
+    @Test
+    public void testAgingListIsRefreshedInTheBackground() throws Exception {
+        List<Repository> first = RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 200);
+        Thread.sleep(120);
+        assertSame(first, RepositoryDiscovery.getRepositories(factory, parameters, "http://localhost/", 200));
+        verify(factory, timeout(1000).times(2)).getRepositories(anyMapOf(String.class, String.class));
+    }
+}
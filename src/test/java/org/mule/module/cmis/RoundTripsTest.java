@@ -0,0 +1,58 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.RoundTrips} internals
+ */
+public class RoundTripsTest {
+
+    @Test
+    public void testRequestsOfWorkerThreadsAreCounted() throws Exception {
+        RoundTrips roundTrips = new RoundTrips();
+        RoundTrips previous = RoundTrips.begin(roundTrips);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Void> request = RoundTrips.propagate(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    RoundTrips current = RoundTrips.current();
+                    current.requestSent();
+                    current.responseReceived(10);
+                    return null;
+                }
+            });
+            executor.submit(request).get();
+            executor.submit(request).get();
+        } finally {
+            executor.shutdown();
+            RoundTrips.end(previous);
+        }
+
+        assertEquals(2, roundTrips.getRequests());
+        assertEquals(20, roundTrips.getResponseBytes());
+        assertNull(RoundTrips.current());
+    }
+
+    @Test
+    public void testTasksOutsideOperationsAreNotWrapped() throws Exception {
+        Callable<Void> task = new Callable<Void>() {
+            @Override
+            public Void call() {
+                return null;
+            }
+        };
+        assertSame(task, RoundTrips.propagate(task));
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.SingleFlight} internals
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallsShareOneExecution() throws Exception {
+        final SingleFlight<String> singleFlight = new SingleFlight<String>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+        final Callable<String> call = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                executions.incrementAndGet();
+                started.countDown();
+                release.await();
+                return "result";
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return singleFlight.execute("key", call);
+                }
+            });
+            started.await();
+            Future<String> second = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return singleFlight.execute("key", call);
+                }
+            });
+            while (singleFlight.getCoalesced() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals("result", first.get(5, TimeUnit.SECONDS));
+            assertEquals("result", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSequentialCallsAreNotShared() {
+        SingleFlight<Integer> singleFlight = new SingleFlight<Integer>();
+        final AtomicInteger executions = new AtomicInteger();
+        Callable<Integer> call = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return executions.incrementAndGet();
+            }
+        };
+        assertEquals(Integer.valueOf(1), singleFlight.execute("key", call));
+        assertEquals(Integer.valueOf(2), singleFlight.execute("key", call));
+        assertEquals(0, singleFlight.getCoalesced());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExceptionIsRethrown() {
+        new SingleFlight<String>().execute("key", new Callable<String>() {
+            @Override
+            public String call() {
+                throw new IllegalStateException();
+            }
+        });
+    }
+}
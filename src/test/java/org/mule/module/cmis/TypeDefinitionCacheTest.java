@@ -0,0 +1,85 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.chemistry.opencmis.client.api.ObjectType;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.api.Tree;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test {@link org.mule.module.cmis.TypeDefinitionCache} internals
+ */
+public class TypeDefinitionCacheTest {
+
+    private TypeDefinitionCache cache;
+    private Session session;
+
+    @Before
+    public void setUp() {
+        cache = new TypeDefinitionCache();
+        session = mock(Session.class);
+    }
+
+    @Test
+    public void testDefinitionIsFetchedOnce() {
+        ObjectType document = type("cmis:document");
+        when(session.getTypeDefinition("cmis:document")).thenReturn(document);
+
+        assertSame(document, cache.get(session, "cmis:document"));
+        assertSame(document, cache.get(session, "cmis:document"));
+        verify(session, times(1)).getTypeDefinition("cmis:document");
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        when(session.getTypeDefinition("cmis:document")).thenReturn(type("cmis:document"));
+
+        cache.get(session, "cmis:document");
+        cache.invalidate("cmis:document");
+        assertEquals(0, cache.getSize());
+        cache.get(session, "cmis:document");
+        verify(session, times(2)).getTypeDefinition("cmis:document");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPreloadCachesSubtypes() {
+        ObjectType custom = type("D:cmiscustom:document");
+        ObjectType child = type("D:cmiscustom:child");
+        Tree<ObjectType> childTree = mock(Tree.class);
+        when(childTree.getItem()).thenReturn(child);
+        Tree<ObjectType> customTree = mock(Tree.class);
+        when(customTree.getItem()).thenReturn(custom);
+        when(customTree.getChildren()).thenReturn(Collections.singletonList(childTree));
+        List<Tree<ObjectType>> descendants = Collections.singletonList(customTree);
+
+        ObjectType document = type("cmis:document");
+        when(session.getTypeDefinition("cmis:document")).thenReturn(document);
+        when(session.getTypeDescendants("cmis:document", -1, true)).thenReturn(descendants);
+        when(session.getTypeDefinition("cmis:folder")).thenReturn(type("cmis:folder"));
+
+        assertEquals(4, cache.preload(session, Arrays.asList("cmis:document", "cmis:folder")));
+        assertSame(child, cache.get(session, "D:cmiscustom:child"));
+        verify(session, never()).getTypeDefinition("D:cmiscustom:child");
+    }
+
+    private static ObjectType type(String id) {
+        ObjectType type = mock(ObjectType.class);
+        when(type.getId()).thenReturn(id);
+        return type;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.UploadSpooler} internals
+ */
+public class UploadSpoolerTest {
+
+    @Test
+    public void testRetryReplaysConsumedStream() throws Exception {
+        UploadSpooler spooler = new UploadSpooler(1024);
+        InputStream payload = new ByteArrayInputStream("This is a mock test".getBytes("UTF-8"));
+
+        assertEquals("This is a mock test", IOUtils.toString(spooler.spool(payload, false).openStream(), "UTF-8"));
+        assertEquals(-1, payload.read());
+        assertEquals("This is a mock test", IOUtils.toString(spooler.spool(payload, false).openStream(), "UTF-8"));
+        assertEquals(1, spooler.size());
+
+        spooler.release(payload);
+        assertEquals(0, spooler.size());
+    }
+
+    @Test
+    public void testContentAboveThresholdIsSpilledToDisk() throws Exception {
+        UploadSpooler spooler = new UploadSpooler(4);
+        InputStream payload = new ByteArrayInputStream("This is a mock test".getBytes("UTF-8"));
+
+        SpooledContent content = spooler.spool(payload, false);
+        assertEquals(19, content.getLength());
+        assertEquals("This is a mock test", IOUtils.toString(content.openStream(), "UTF-8"));
+        assertEquals("This is a mock test", IOUtils.toString(content.openStream(), "UTF-8"));
+        spooler.release(payload);
+    }
+
+    @Test
+    public void testHashIsComputedOnRetryWhenFirstSpooledWithoutIt() throws Exception {
+        UploadSpooler spooler = new UploadSpooler(1024);
+        InputStream payload = new ByteArrayInputStream("abc".getBytes("UTF-8"));
+
+        assertNull(spooler.spool(payload, false).getHash());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                spooler.spool(payload, true).getHash());
+        assertEquals(1, spooler.size());
+    }
+}
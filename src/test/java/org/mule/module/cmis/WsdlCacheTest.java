@@ -0,0 +1,72 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link org.mule.module.cmis.WsdlCache} internals
+ */
+public class WsdlCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWsdlAndImportsAreStoredLocally() throws Exception {
+        File remote = folder.newFolder("remote");
+        FileUtils.writeStringToFile(new File(remote, "ObjectService.wsdl"),
+                "<wsdl:definitions><wsdl:types><xsd:schema>" +
+                        "<xsd:import namespace=\"urn:cmis\" schemaLocation=\"cmis.xsd\"/>" +
+                        "</xsd:schema></wsdl:types>" +
+                        "<soap:address location=\"http://localhost/ObjectService\"/></wsdl:definitions>", "UTF-8");
+        FileUtils.writeStringToFile(new File(remote, "cmis.xsd"), "<xsd:schema/>", "UTF-8");
+
+        WsdlCache cache = new WsdlCache(folder.newFolder("cache"), "http://localhost/cmis", null, null, 1000);
+        String local = cache.localUrl("ObjectService", new File(remote, "ObjectService.wsdl").toURI().toString());
+
+        String wsdl = FileUtils.readFileToString(new File(new URI(local)), "UTF-8");
+        assertFalse(wsdl.contains("schemaLocation=\"cmis.xsd\""));
+        assertTrue(wsdl.contains("location=\"http://localhost/ObjectService\""));
+
+        // Later sessions use the local copy, even when the repository is gone
+        FileUtils.deleteDirectory(remote);
+        assertEquals(local, cache.localUrl("ObjectService", "http://localhost/ObjectService?wsdl"));
+    }
+
+    @Test
+    public void testServersHaveTheirOwnCopies() throws Exception {
+        File remote = folder.newFolder("remote");
+        File first = new File(remote, "first.wsdl");
+        FileUtils.writeStringToFile(first, "<soap:address location=\"http://first/ObjectService\"/>", "UTF-8");
+        File second = new File(remote, "second.wsdl");
+        FileUtils.writeStringToFile(second, "<soap:address location=\"http://second/ObjectService\"/>", "UTF-8");
+        File directory = folder.newFolder("cache");
+
+        String firstLocal = new WsdlCache(directory, "http://first/cmis", null, null, 1000)
+                .localUrl("ObjectService", first.toURI().toString());
+        String secondLocal = new WsdlCache(directory, "http://second/cmis", null, null, 1000)
+                .localUrl("ObjectService", second.toURI().toString());
+
+        assertFalse(firstLocal.equals(secondLocal));
+        assertTrue(FileUtils.readFileToString(new File(new URI(secondLocal)), "UTF-8").contains("http://second/"));
+    }
+
+    @Test
+    public void testRemoteUrlIsKeptWhenDownloadFails() throws Exception {
+        WsdlCache cache = new WsdlCache(folder.newFolder("cache"), "http://localhost/cmis", null, null, 1000);
+        String missing = new File(folder.getRoot(), "missing.wsdl").toURI().toString();
+        assertEquals(missing, cache.localUrl("ObjectService", missing));
+    }
+}
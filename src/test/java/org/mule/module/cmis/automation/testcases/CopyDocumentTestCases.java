@@ -0,0 +1,55 @@
+/**
+ * (c) 2003-2014 MuleSoft, Inc. The software in this package is published under the terms of the CPAL v1.0 license,
+ * a copy of which has been included with this distribution in the LICENSE.md file.
+ */
+
+package org.mule.module.cmis.automation.testcases;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mule.module.cmis.automation.CMISTestParent;
+import org.mule.module.cmis.automation.RegressionTests;
+import org.mule.modules.tests.ConnectorTestUtils;
+
+import static org.junit.Assert.*;
+
+public class CopyDocumentTestCases extends CMISTestParent {
+
+    private String folderId;
+
+    @Before
+    public void setUp() throws Exception {
+        initializeTestRunMessage("copyDocumentTestData");
+        folderId = createFolderAndUpsertFolderIdOnTestRunMessage();
+        String documentId = ((ObjectId) runFlowAndGetPayload("create-document-by-id")).getId();
+        upsertOnTestRunMessage("documentId", documentId);
+        upsertOnTestRunMessage("targetFolderId", folderId);
+    }
+
+    @Category({RegressionTests.class})
+    @Test
+    public void testCopyDocument() {
+        try {
+            ObjectId result = runFlowAndGetPayload("copy-document");
+            assertNotNull(result);
+            assertFalse(getTestRunMessageValue("documentId").equals(result.getId()));
+
+            CmisObject copy = getObjectById(result.getId());
+            assertEquals(getTestRunMessageValue("copyFilename"), copy.getName());
+            assertEquals(getTestRunMessageValue("contentRef"), IOUtils.toString(((Document) copy).getContentStream().getStream()));
+        } catch (Exception e) {
+            fail(ConnectorTestUtils.getStackTrace(e));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        deleteTree(folderId, true, true);
+    }
+}
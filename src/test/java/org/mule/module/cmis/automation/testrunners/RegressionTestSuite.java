@@ -22,6 +22,7 @@ import org.mule.module.cmis.automation.testcases.*;
         ChangeLogTestCases.class,
         CheckInTestCases.class,
         CheckOutTestCases.class,
+        CopyDocumentTestCases.class,
         CreateDocumentByIdFromContentTestCases.class,
         CreateDocumentByIdTestCases.class,
         CreateDocumentByPathFromContentTestCases.class,